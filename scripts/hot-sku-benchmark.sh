@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Chạy HotSkuReservationBenchmark (JMH): throughput thêm vào giỏ khi mọi luồng giữ hàng của cùng một SKU.
+# Tham số thêm được chuyển cho JMH, ví dụ số luồng:
+#
+#   ./scripts/hot-sku-benchmark.sh -t 32
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+cd "$ROOT"
+sh ./mvnw -B -q test-compile
+sh ./mvnw -B -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+
+java -cp "target/test-classes:target/classes:$(cat target/test-classpath.txt)" \
+    org.openjdk.jmh.Main HotSkuReservationBenchmark "$@"
@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# Áp dụng src/main/resources/db/schema-sqlserver.sql lên database của profile prod. Chạy đúng một lần ở bước
+# deploy, trước khi khởi động (rolling) các node mới; node prod không tự chạy script lúc khởi động
+# (spring.sql.init.mode=never) vì các câu "IF ... CREATE" là kiểm tra rồi mới tạo, nhiều node chạy cùng lúc sẽ đua nhau.
+# Dùng chung jar và biến môi trường với node (SPRING_DATASOURCE_*, BAKING_CART_TOKEN_SECRET...), ví dụ:
+#
+#   SPRING_DATASOURCE_URL=... SPRING_DATASOURCE_PASSWORD=... ./scripts/migrate-schema.sh [đường dẫn jar]
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${1:-$ROOT/target/swd392.baking-0.0.1-SNAPSHOT.jar}"
+
+if [ ! -f "$JAR" ]; then
+    cd "$ROOT"
+    sh ./mvnw -B -q -DskipTests package
+fi
+
+# Script chạy khi khởi tạo DataSource (trước Hibernate); context dừng ngay sau refresh nên web server và các
+# job định kỳ không chạy. Script lỗi thì refresh lỗi và lệnh trả về mã khác 0.
+java -Dspring.context.exit=onRefresh -jar "$JAR" \
+    --spring.profiles.active=prod \
+    --spring.sql.init.mode=always \
+    --spring.main.web-application-type=none
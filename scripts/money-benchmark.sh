@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Chạy MoneyBenchmark (JMH + GC profiler): so sánh thời gian và byte cấp phát mỗi lần tính tổng giỏ hàng /
+# khoảng giá giữa BigDecimal và Money. Tham số thêm được chuyển cho JMH, ví dụ:
+#
+#   ./scripts/money-benchmark.sh -p lines=50
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+cd "$ROOT"
+sh ./mvnw -B -q test-compile
+sh ./mvnw -B -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+
+java -cp "target/test-classes:target/classes:$(cat target/test-classpath.txt)" \
+    org.openjdk.jmh.Main MoneyBenchmark -prof gc "$@"
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Đo thời gian khởi động (tới khi /actuator/health trả về UP) và RSS của các cách chạy:
+#   jar     : fat jar, profile prod
+#   cds-aot : jar đã extract + AppCDS archive từ một lần chạy huấn luyện + Spring AOT
+#   native  : GraalVM native image (chỉ khi đã build bằng mvn -Pnative native:compile)
+# Các lần chạy đều cần kết nối được tới database của profile prod (spring.datasource.*).
+#
+#   ./scripts/startup-benchmark.sh [số lần chạy mỗi cách, mặc định 5]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$ROOT/target/swd392.baking-0.0.1-SNAPSHOT.jar"
+EXTRACTED="$ROOT/target/extracted"
+NATIVE="$ROOT/target/swd392.baking"
+
+cd "$ROOT"
+sh ./mvnw -B -q -Paot -DskipTests package
+
+# Extract jar theo layout CDS rồi chạy huấn luyện: context refresh xong thì thoát, JVM ghi archive
+rm -rf "$EXTRACTED"
+java -Djarmode=tools -jar "$JAR" extract --destination "$EXTRACTED"
+APP_JAR="$EXTRACTED/$(basename "$JAR")"
+java -XX:ArchiveClassesAtExit="$EXTRACTED/application.jsa" \
+    -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar "$APP_JAR" --spring.profiles.active=prod > /dev/null
+
+measure() {
+    local name="$1"
+    shift
+    local total_ms=0 total_rss=0
+    for ((i = 1; i <= RUNS; i++)); do
+        local start
+        start=$(date +%s%N)
+        "$@" --spring.profiles.active=prod --server.port="$PORT" > /dev/null 2>&1 &
+        local pid=$!
+        until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+            kill -0 "$pid" 2> /dev/null || { echo "$name: process exited before becoming healthy" >&2; return 1; }
+            sleep 0.05
+        done
+        local elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+        local rss_kb
+        rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        total_ms=$((total_ms + elapsed_ms))
+        total_rss=$((total_rss + rss_kb))
+    done
+    printf '%-8s startup %6d ms   rss %6d MB   (avg of %d)\n' \
+        "$name" $((total_ms / RUNS)) $((total_rss / RUNS / 1024)) "$RUNS"
+}
+
+measure jar java -jar "$JAR"
+measure cds-aot java -XX:SharedArchiveFile="$EXTRACTED/application.jsa" -Dspring.aot.enabled=true -jar "$APP_JAR"
+if [[ -x "$NATIVE" ]]; then
+    measure native "$NATIVE"
+else
+    echo "native   skipped (build with: sh ./mvnw -Pnative native:compile)"
+fi
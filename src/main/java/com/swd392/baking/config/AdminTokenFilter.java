@@ -0,0 +1,60 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Chặn /api/admin/** (import catalog, analytics giỏ hàng) bằng token dùng chung trong header X-Admin-Token,
+ * so với baking.admin.token (biến môi trường BAKING_ADMIN_TOKEN). Không cấu hình token thì API admin tắt hẳn (404).
+ * Chạy sau RateLimitFilter để việc dò token cũng bị giới hạn.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 200)
+public class AdminTokenFilter extends OncePerRequestFilter {
+
+    private static final String ADMIN_PATH_PREFIX = "/api/admin/";
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    public AdminTokenFilter(@Value("${baking.admin.token:}") String token) {
+        this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+        if (this.token == null) {
+            log.info("baking.admin.token is not set, admin API is disabled");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().substring(request.getContextPath().length()).startsWith(ADMIN_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (token == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String provided = request.getHeader(TOKEN_HEADER);
+        if (provided == null || !MessageDigest.isEqual(token, provided.getBytes(StandardCharsets.UTF_8))) {
+            log.debug("Rejected admin request {} {} without a valid token", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Admin token required");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
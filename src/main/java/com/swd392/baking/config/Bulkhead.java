@@ -0,0 +1,157 @@
+package com.swd392.baking.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giới hạn số request chạy đồng thời của một nhóm endpoint, với giới hạn tự điều chỉnh kiểu AIMD:
+ * request hoàn thành chậm hơn latencyThreshold thì nhân giới hạn với backoffRatio (tối đa một lần cho mỗi
+ * "vòng" request), còn khi đang dùng gần hết giới hạn mà vẫn nhanh thì tăng dần khoảng 1 mỗi vòng.
+ * Request vượt giới hạn xếp hàng tối đa queueTimeout, hàng đợi đầy hoặc hết giờ thì bị từ chối.
+ * Nhóm adaptive=false giữ giới hạn cố định, dùng cho request vốn chạy lâu (export, import) để độ trễ
+ * của chúng không kéo giới hạn xuống.
+ */
+public class Bulkhead {
+
+    /**
+     * Cấu hình một nhóm, bind từ baking.bulkhead.groups.&lt;tên&gt;.*
+     */
+    @Data
+    public static class Settings {
+        private List<String> paths = new ArrayList<>();
+        private int minLimit = 1;
+        private int maxLimit = 10;
+        private int initialLimit = 10;
+        private int maxQueue = 0;
+        private Duration queueTimeout = Duration.ZERO;
+        private Duration latencyThreshold = Duration.ofSeconds(1);
+        private double backoffRatio = 0.9;
+        private boolean adaptive = true;
+    }
+
+    public enum Rejection { QUEUE_FULL, TIMEOUT }
+
+    private final String name;
+    private final Settings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    public Bulkhead(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), settings.getInitialLimit()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Chiếm một chỗ; trả về null nếu được chạy, ngược lại là lý do bị từ chối
+     */
+    public Rejection acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return null;
+            }
+            if (waiting >= settings.getMaxQueue()) {
+                return Rejection.QUEUE_FULL;
+            }
+            waiting++;
+            try {
+                long remaining = settings.getQueueTimeout().toNanos();
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return Rejection.TIMEOUT;
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                inFlight++;
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Rejection.TIMEOUT;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Trả chỗ và cập nhật giới hạn theo thời gian xử lý (tính từ lúc acquire thành công)
+     */
+    public void release(long startNanos, long endNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            int before = (int) limit;
+            if (!settings.isAdaptive()) {
+                available.signal();
+                return;
+            }
+            if (endNanos - startNanos > settings.getLatencyThreshold().toNanos()) {
+                // Các request bắt đầu trước lần giảm trước chạy ở giới hạn cũ, không tính để tránh giảm dồn
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+                    lastDecreaseNanos = endNanos;
+                }
+            } else if (saturated) {
+                limit = Math.min(settings.getMaxLimit(), limit + 1.0 / limit);
+            }
+            if ((int) limit > before) {
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
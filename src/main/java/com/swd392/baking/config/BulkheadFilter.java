@@ -0,0 +1,134 @@
+package com.swd392.baking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulkhead theo nhóm controller (baking.bulkhead.groups.catalog / cart / pages): catalog bị giới hạn dưới
+ * kích thước pool Hikari nên spike ở /api/products không chiếm hết connection của /api/cart.
+ * Export/import nằm trong nhóm catalog-batch với giới hạn cố định, tách khỏi giới hạn tự điều chỉnh của catalog.
+ * Path khớp nhiều nhóm thì lấy nhóm có pattern cụ thể nhất.
+ * Request bị loại trả 503 kèm Retry-After; request không thuộc nhóm nào đi thẳng.
+ * <p>
+ * Metric (tag bulkhead): baking.bulkhead.limit, baking.bulkhead.in-flight, baking.bulkhead.waiting,
+ * baking.bulkhead.rejected (thêm tag reason).
+ */
+@Slf4j
+@Component
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Bulkhead> bulkheads = new ArrayList<>();
+    private final Map<Bulkhead, Map<Bulkhead.Rejection, Counter>> rejected = new HashMap<>();
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+
+    public BulkheadFilter(Environment environment,
+                          MeterRegistry meterRegistry,
+                          @Value("${baking.bulkhead.enabled:true}") boolean enabled,
+                          @Value("${baking.bulkhead.retry-after:PT1S}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        Map<String, Bulkhead.Settings> groups = Binder.get(environment)
+                .bind("baking.bulkhead.groups", Bindable.mapOf(String.class, Bulkhead.Settings.class))
+                .orElse(Map.of());
+        groups.forEach((name, settings) -> {
+            Bulkhead bulkhead = new Bulkhead(name, settings);
+            bulkheads.add(bulkhead);
+            registerMetrics(bulkhead, meterRegistry);
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || bulkheads.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = match(request.getRequestURI().substring(request.getContextPath().length()));
+        if (bulkhead == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Bulkhead.Rejection rejection = bulkhead.acquire();
+        if (rejection != null) {
+            rejected.get(bulkhead).get(rejection).increment();
+            log.debug("Shed {} {} from bulkhead {}: {}", request.getMethod(), request.getRequestURI(),
+                    bulkhead.getName(), rejection);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            bulkhead.release(start, System.nanoTime());
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private Bulkhead match(String path) {
+        Comparator<String> specificity = pathMatcher.getPatternComparator(path);
+        Bulkhead matched = null;
+        String matchedPattern = null;
+        for (Bulkhead bulkhead : bulkheads) {
+            for (String pattern : bulkhead.getSettings().getPaths()) {
+                if (pathMatcher.match(pattern, path)
+                        && (matchedPattern == null || specificity.compare(pattern, matchedPattern) < 0)) {
+                    matched = bulkhead;
+                    matchedPattern = pattern;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void registerMetrics(Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        String name = bulkhead.getName();
+        Gauge.builder("baking.bulkhead.limit", bulkhead, Bulkhead::getLimit)
+                .tag("bulkhead", name)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("baking.bulkhead.in-flight", bulkhead, Bulkhead::getInFlight)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("baking.bulkhead.waiting", bulkhead, Bulkhead::getWaiting)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Map<Bulkhead.Rejection, Counter> counters = new EnumMap<>(Bulkhead.Rejection.class);
+        for (Bulkhead.Rejection reason : Bulkhead.Rejection.values()) {
+            counters.put(reason, Counter.builder("baking.bulkhead.rejected")
+                    .tag("bulkhead", name)
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        rejected.put(bulkhead, counters);
+    }
+}
@@ -0,0 +1,208 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Khóa giỏ hàng guest lưu trong cookie đã ký thay cho HttpSession: base64url(UUID 16 byte [+ thời điểm ghi giỏ
+ * hàng gần nhất, epoch millis 8 byte]) + "." + base64url(HMAC-SHA256 cắt còn 16 byte), khoảng 45-55 ký tự.
+ * Server không giữ trạng thái nên node nào cũng phục vụ được (kể cả read-your-writes, xem ReadYourWritesTracker),
+ * và khách không hoạt động không tốn heap. Mọi node phải dùng chung baking.cart.token.secret
+ * (biến môi trường BAKING_CART_TOKEN_SECRET). Chỉ khi chạy dev / test (không bật profile nào khác) mới được bỏ
+ * trống và dùng khóa ngẫu nhiên; profile khác (prod, replica...) thiếu secret thì không khởi động.
+ */
+@Slf4j
+@Component
+public class CartSessionCookie {
+
+    private static final String COOKIE_NAME = "CART";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16;
+
+    // Khóa cũ trong HttpSession trước khi chuyển sang cookie
+    private static final String LEGACY_SESSION_ATTRIBUTE = "sessionId";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] secret;
+    private final Duration maxAge;
+    private final boolean secure;
+
+    // Profile được phép chạy với khóa ngẫu nhiên khi chưa cấu hình secret
+    private static final Profiles RANDOM_SECRET_PROFILES = Profiles.of("default", "dev", "test");
+
+    // Mac không thread-safe
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    public CartSessionCookie(@Value("${baking.cart.token.secret:}") String secret,
+                             @Value("${baking.cart.token.max-age:P30D}") Duration maxAge,
+                             @Value("${baking.cart.token.secure:false}") boolean secure,
+                             Environment environment) {
+        if (secret.isBlank()) {
+            if (!environment.acceptsProfiles(RANDOM_SECRET_PROFILES)) {
+                throw new IllegalStateException("baking.cart.token.secret must be set (BAKING_CART_TOKEN_SECRET) "
+                        + "for profiles " + Arrays.toString(environment.getActiveProfiles()));
+            }
+            log.warn("baking.cart.token.secret is not set, using a random key: cart cookies will not survive "
+                    + "a restart or work across nodes");
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.maxAge = maxAge;
+        this.secure = secure;
+    }
+
+    /**
+     * SessionId của giỏ hàng từ cookie hợp lệ (hoặc HttpSession cũ); null nếu chưa có
+     */    public String resolve(HttpServletRequest request) {
+        Token token = resolveToken(request);
+        if (token != null) {
+            return token.sessionId();
+        }
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute(LEGACY_SESSION_ATTRIBUTE) instanceof String legacy
+                && isUuid(legacy) ? legacy : null;
+    }
+
+    /**
+     * Thời điểm (epoch millis) giỏ hàng của cookie được ghi gần nhất; 0 nếu không có
+     */
+    public long resolveLastWrite(HttpServletRequest request) {
+        Token token = resolveToken(request);
+        return token != null ? token.lastWrite() : 0;
+    }
+
+    /**
+     * SessionId hiện có hoặc tạo mới; luôn ghi lại cookie để gia hạn và chuyển khách từ HttpSession cũ sang cookie
+     */
+    public String getOrCreate(HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = resolve(request);
+        if (sessionId == null) {
+            sessionId = UUID.randomUUID().toString();
+        }
+        write(response, sessionId, resolveLastWrite(request));
+        return sessionId;
+    }
+
+    /**
+     * Ghi lại cookie với thời điểm ghi giỏ hàng là bây giờ. Nếu trong request đã có getOrCreate thì response có
+     * hai Set-Cookie CART, trình duyệt lấy cái sau. Không có cookie (chưa có giỏ guest) thì bỏ qua.
+     */
+    public void markWritten(HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = resolve(request);
+        if (sessionId != null) {
+            write(response, sessionId, System.currentTimeMillis());
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void write(HttpServletResponse response, String sessionId, long lastWrite) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, sign(sessionId, lastWrite))
+                .path("/")
+                .maxAge(maxAge)
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private Token resolveToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    Token token = verify(cookie.getValue());
+                    if (token != null) {
+                        return token;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Chưa ghi lần nào thì chỉ ký UUID, giống định dạng cũ
+    private String sign(String sessionId, long lastWrite) {
+        UUID uuid = UUID.fromString(sessionId);
+        ByteBuffer buffer = ByteBuffer.allocate(lastWrite > 0 ? 24 : 16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        if (lastWrite > 0) {
+            buffer.putLong(lastWrite);
+        }
+        byte[] payload = buffer.array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(signature(payload));
+    }
+
+    private Token verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if ((payload.length != 16 && payload.length != 24)
+                    || !MessageDigest.isEqual(signature, signature(payload))) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            String sessionId = new UUID(buffer.getLong(), buffer.getLong()).toString();
+            return new Token(sessionId, buffer.hasRemaining() ? buffer.getLong() : 0);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] signature(byte[] payload) {
+        return Arrays.copyOf(mac.get().doFinal(payload), SIGNATURE_BYTES);
+    }
+
+    private static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+            instance.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    private record Token(String sessionId, long lastWrite) {
+    }
+}
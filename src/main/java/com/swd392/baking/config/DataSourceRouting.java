@@ -0,0 +1,25 @@
+package com.swd392.baking.config;
+
+/**
+ * Cờ theo thread báo rằng các truy vấn tiếp theo phải đọc từ primary dù transaction là readOnly
+ * (read-your-writes). Filter đặt cờ cho cả request và luôn xóa khi request kết thúc.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static void forcePrimary() {
+        PRIMARY_FORCED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_FORCED.remove();
+    }
+}
@@ -0,0 +1,80 @@
+package com.swd392.baking.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket trong bộ nhớ, mỗi key chỉ một AtomicLong cập nhật bằng CAS (không lock). Bucket lưu ở dạng GCRA:
+ * giá trị là thời điểm bucket sẽ đầy lại; lấy một token là đẩy mốc đó thêm refillNanos, bị từ chối khi mốc vượt
+ * quá hiện tại hơn capacity token.
+ * <p>
+ * Key có mốc đã qua (bucket đầy) là key rảnh, được dọn định kỳ. Khi số key chạm baking.ratelimit.max-keys,
+ * key mới dùng chung một bucket tràn để bộ nhớ không tăng vô hạn khi bị quét bằng nhiều IP.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "baking.ratelimit.store", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final String OVERFLOW_KEY = "overflow";
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    public InMemoryRateLimitStore(@Value("${baking.ratelimit.max-keys:100000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long tryAcquire(String key, int capacity, long refillNanos) {
+        AtomicLong bucket = bucket(key);
+        long burstNanos = capacity * refillNanos;
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + refillNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${baking.ratelimit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        // Bucket đầy thì xóa cũng như giữ; request đang CAS trên bucket vừa bị xóa chỉ được thêm tối đa một token
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        int evicted = before - buckets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private AtomicLong bucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            String prefix = key.substring(0, key.indexOf(':') + 1);
+            return buckets.computeIfAbsent(prefix + OVERFLOW_KEY, k -> new AtomicLong(System.nanoTime()));
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+    }
+}
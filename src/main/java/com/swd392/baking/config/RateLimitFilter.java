@@ -0,0 +1,146 @@
+package com.swd392.baking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tốc độ theo client cho từng lớp endpoint (baking.ratelimit.classes.&lt;tên&gt;): mỗi lớp có bucket
+ * riêng cho mỗi IP (hoặc giỏ hàng, với key-by=session), request phải còn token ở mọi lớp khớp với nó.
+ * Cookie giỏ hàng ai cũng xin được mới, nên lớp key-by=session luôn có thêm một bucket theo IP
+ * (ip-capacity, ip-tokens-per-second, rộng hơn để nhiều người chung NAT không bị chặn): client đổi cookie
+ * liên tục vẫn bị giới hạn theo IP.
+ * Hết token trả 429 kèm Retry-After. Chạy trước BulkheadFilter để request bị chặn không chiếm chỗ trong hàng đợi.
+ * <p>
+ * IP lấy từ request.getRemoteAddr(); sau reverse proxy cần bật server.forward-headers-strategy.
+ * Metric: baking.ratelimit.rejected (tag class).
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Cấu hình một lớp endpoint; methods rỗng là mọi method
+     */
+    @Data
+    public static class Rule {
+        private List<String> paths = new ArrayList<>();
+        private List<String> methods = new ArrayList<>();
+        private int capacity = 60;
+        private double tokensPerSecond = 1;
+        private KeyBy keyBy = KeyBy.IP;
+        // Bucket theo IP đặt thêm cho key-by=session
+        private int ipCapacity = 300;
+        private double ipTokensPerSecond = 10;
+    }
+
+    public enum KeyBy { IP, SESSION }
+
+    private record RateLimitClass(String name, Rule rule, long refillNanos, long ipRefillNanos, Counter rejected) {
+    }
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<RateLimitClass> classes = new ArrayList<>();
+    private final RateLimitStore store;
+    private final CartSessionCookie cartSessionCookie;
+    private final boolean enabled;
+
+    public RateLimitFilter(Environment environment,
+                           RateLimitStore store,
+                           CartSessionCookie cartSessionCookie,
+                           MeterRegistry meterRegistry,
+                           @Value("${baking.ratelimit.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.cartSessionCookie = cartSessionCookie;
+        this.enabled = enabled;
+        Map<String, Rule> rules = Binder.get(environment)
+                .bind("baking.ratelimit.classes", Bindable.mapOf(String.class, Rule.class))
+                .orElse(Map.of());
+        rules.forEach((name, rule) -> classes.add(new RateLimitClass(name, rule,
+                (long) (TimeUnit.SECONDS.toNanos(1) / rule.getTokensPerSecond()),
+                (long) (TimeUnit.SECONDS.toNanos(1) / rule.getIpTokensPerSecond()),
+                Counter.builder("baking.ratelimit.rejected").tag("class", name).register(meterRegistry))));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitClass limitClass : classes) {
+            if (!matches(limitClass.rule(), request.getMethod(), path)) {
+                continue;
+            }
+            long waitNanos = tryAcquire(limitClass, request);
+            if (waitNanos > 0) {
+                limitClass.rejected().increment();
+                log.debug("Rate limited {} {} from {} in class {}", request.getMethod(), request.getRequestURI(),
+                        request.getRemoteAddr(), limitClass.name());
+                long retryAfter = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please slow down");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private boolean matches(Rule rule, String method, String path) {
+        if (!rule.getMethods().isEmpty() && !rule.getMethods().contains(method)) {
+            return false;
+        }
+        for (String pattern : rule.getPaths()) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Thời gian phải chờ (0 nếu được đi tiếp)
+    private long tryAcquire(RateLimitClass limitClass, HttpServletRequest request) {
+        Rule rule = limitClass.rule();
+        String address = request.getRemoteAddr();
+        if (rule.getKeyBy() == KeyBy.IP) {
+            return store.tryAcquire(limitClass.name() + ":" + address, rule.getCapacity(), limitClass.refillNanos());
+        }
+        long ipWait = store.tryAcquire(limitClass.name() + ":ip:" + address, rule.getIpCapacity(),
+                limitClass.ipRefillNanos());
+        if (ipWait > 0) {
+            return ipWait;
+        }
+        // Bot bỏ cookie thì mỗi request là một giỏ mới, nên chưa có giỏ hợp lệ thì tính theo IP với giới hạn của giỏ
+        String sessionId = cartSessionCookie.resolve(request);
+        String key = sessionId != null ? "s:" + sessionId : address;
+        return store.tryAcquire(limitClass.name() + ":" + key, rule.getCapacity(), limitClass.refillNanos());
+    }
+}
@@ -0,0 +1,18 @@
+package com.swd392.baking.config;
+
+/**
+ * Nơi giữ trạng thái token bucket của RateLimitFilter. Mặc định InMemoryRateLimitStore (mỗi node một giới hạn
+ * riêng); chạy nhiều node mà cần giới hạn chung thì cung cấp bean khác (Redis, ...) với
+ * baking.ratelimit.store khác in-memory.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Lấy một token từ bucket của key
+     *
+     * @param capacity    số token tối đa (burst)
+     * @param refillNanos thời gian hồi một token
+     * @return 0 nếu được phép, ngược lại số nano giây phải chờ tới khi có token
+     */
+    long tryAcquire(String key, int capacity, long refillNanos);
+}
@@ -0,0 +1,74 @@
+package com.swd392.baking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bật khi có baking.datasource.replica.urls: primary lấy từ spring.datasource.*, mỗi URL replica
+ * một pool Hikari riêng (dùng chung spring.datasource.hikari.*). Transaction readOnly
+ * (ProductService, CartService.getCart, ...) đọc từ replica, mọi thứ khác đi primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "baking.datasource.replica", name = "urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${baking.datasource.replica.urls}") List<String> replicaUrls,
+            @Value("${baking.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${baking.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configurePool(primary, environment, "primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String key = "replica-" + i;
+            HikariDataSource replica = new HikariDataSource();
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            configurePool(replica, environment, key);
+            // Connection replica luôn chỉ đọc, lỡ có câu ghi lọt vào thì DB báo lỗi ngay
+            replica.setReadOnly(true);
+            replicas.put(key, replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    /**
+     * DataSource dùng cho JPA / JdbcTemplate; proxy lazy để chỉ chọn primary/replica ở câu lệnh đầu tiên,
+     * lúc cờ readOnly của transaction đã được đặt
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource routingDataSource) {
+        return new ReplicaLagMonitor(routingDataSource);
+    }
+
+    private static void configurePool(HikariDataSource dataSource, Environment environment, String name) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("baking-" + name);
+    }
+}
@@ -0,0 +1,34 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Ép cả request đọc primary nếu giỏ hàng của session vừa được sửa gần đây
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (tracker.isSticky(request)) {
+            DataSourceRouting.forcePrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRouting.clear();
+        }
+    }
+}
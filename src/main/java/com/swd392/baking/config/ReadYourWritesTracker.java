@@ -0,0 +1,46 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Giỏ hàng vừa bị sửa thì những lần đọc kế tiếp của cùng khách đi primary trong
+ * baking.datasource.replica.sticky-window, tránh đọc lại dữ liệu cũ từ replica đang trễ.
+ * Thời điểm ghi nằm trong cookie giỏ hàng đã ký (CartSessionCookie) chứ không trong bộ nhớ, nên request kế tiếp
+ * tới node nào cũng biết; đồng hồ các node lệch nhau chỉ làm khoảng đọc primary dài / ngắn đi chừng ấy.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesTracker {
+
+    private final CartSessionCookie cartSessionCookie;
+
+    @Value("${baking.datasource.replica.sticky-window:PT10S}")
+    private Duration stickyWindow;
+
+    /**
+     * Ghi nhận khách của request hiện tại vừa ghi giỏ hàng; phần còn lại của request cũng đọc primary.
+     * Ngoài request (job nền) thì không có khách nào để đánh dấu.
+     */
+    public void markWritten() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            DataSourceRouting.forcePrimary();
+            cartSessionCookie.markWritten(attributes.getRequest(), attributes.getResponse());
+        }
+    }
+
+    /**
+     * Khách của request còn trong khoảng phải đọc primary hay không
+     */
+    public boolean isSticky(HttpServletRequest request) {
+        long lastWrite = cartSessionCookie.resolveLastWrite(request);
+        return lastWrite > 0 && System.currentTimeMillis() - lastWrite < stickyWindow.toMillis();
+    }
+}
@@ -0,0 +1,95 @@
+package com.swd392.baking.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi heartbeat lên primary và đọc lại trên từng replica ở lần kiểm tra kế tiếp; replica nào lỗi hoặc trễ quá
+ * baking.datasource.replica.max-lag bị loại khỏi vòng đọc cho tới khi bắt kịp.
+ * max-lag = 0 thì chỉ kiểm tra kết nối (dùng khi thử với hai DB không replicate).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaLagMonitor {
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private static final String UPDATE_HEARTBEAT_SQL =
+            "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = ?";
+    private static final String INSERT_HEARTBEAT_SQL =
+            "INSERT INTO replication_heartbeat (id, beat_millis) VALUES (?, ?)";
+    private static final String SELECT_HEARTBEAT_SQL =
+            "SELECT beat_millis FROM replication_heartbeat WHERE id = ?";
+    private static final String PING_SQL = "SELECT 1";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    @Value("${baking.datasource.replica.max-lag:PT5S}")
+    private Duration maxLag;
+
+    // Heartbeat ghi ở lần kiểm tra trước; replica đã có đủ một chu kỳ để nhận được giá trị này
+    private long lastBeat;
+
+    /**
+     * Cập nhật danh sách replica khỏe rồi ghi heartbeat mới; replica chỉ nhận đọc từ lần kiểm tra thứ hai
+     */
+    @Scheduled(fixedDelayString = "${baking.datasource.replica.lag-check-interval:PT5S}")
+    public synchronized void check() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet()) {
+            try {
+                if (isWithinLag(new JdbcTemplate(replica.getValue()))) {
+                    healthy.add(replica.getKey());
+                }
+            } catch (RuntimeException e) {
+                log.debug("Replica {} check failed: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        healthy.sort(null);
+
+        if (!healthy.equals(routingDataSource.getHealthyReplicas())) {
+            log.info("Healthy read replicas: {} of {}", healthy, routingDataSource.getReplicas().keySet());
+        }
+        routingDataSource.setHealthyReplicas(healthy);
+
+        if (!maxLag.isZero()) {
+            writeHeartbeat(System.currentTimeMillis());
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void writeHeartbeat(long now) {
+        try {
+            JdbcTemplate primary = new JdbcTemplate(routingDataSource.getPrimary());
+            if (primary.update(UPDATE_HEARTBEAT_SQL, now, HEARTBEAT_ID) == 0) {
+                primary.update(INSERT_HEARTBEAT_SQL, HEARTBEAT_ID, now);
+            }
+            lastBeat = now;
+        } catch (RuntimeException e) {
+            log.warn("Cannot write replication heartbeat: {}", e.getMessage());
+        }
+    }
+
+    private boolean isWithinLag(JdbcTemplate replica) {
+        if (maxLag.isZero()) {
+            replica.queryForObject(PING_SQL, Integer.class);
+            return true;
+        }
+        if (lastBeat == 0) {
+            return false;
+        }
+        // Độ trễ = heartbeat lần trước - heartbeat replica đang thấy (0 nếu đã bắt kịp)
+        List<Long> beats = replica.queryForList(SELECT_HEARTBEAT_SQL, Long.class, HEARTBEAT_ID);
+        return !beats.isEmpty() && lastBeat - beats.get(0) <= maxLag.toMillis();
+    }
+}
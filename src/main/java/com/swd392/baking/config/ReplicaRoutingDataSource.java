@@ -0,0 +1,77 @@
+package com.swd392.baking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chọn primary hoặc một replica cho mỗi connection: transaction readOnly đi replica (xoay vòng
+ * trong các replica đang khỏe), còn lại và khi đang bị ép đọc primary thì đi primary.
+ * Phải được bọc bởi LazyConnectionDataSourceProxy để cờ readOnly có hiệu lực trước khi lấy connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Replica khỏe (độ trễ trong ngưỡng), cập nhật bởi ReplicaLagMonitor
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || DataSourceRouting.isPrimaryForced()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    void setHealthyReplicas(List<String> healthy) {
+        this.healthyReplicas = List.copyOf(healthy);
+    }
+
+    @Override
+    public void close() {
+        List<DataSource> all = new ArrayList<>(replicas.values());
+        all.add(primary);
+        for (DataSource dataSource : all) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
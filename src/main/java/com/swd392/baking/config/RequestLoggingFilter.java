@@ -0,0 +1,47 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log request theo mẫu: luôn ghi request chậm hơn baking.logging.request.slow-threshold,
+ * còn lại chỉ ghi một tỉ lệ baking.logging.request.sample-rate
+ */
+@Slf4j(topic = "com.swd392.baking.request")
+@Component
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    @Value("${baking.logging.request.sample-rate:0}")
+    private double sampleRate;
+
+    @Value("${baking.logging.request.slow-threshold:PT1S}")
+    private Duration slowThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            if (elapsedNanos >= slowThreshold.toNanos()) {
+                log.warn("Slow request {} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), elapsedNanos / 1_000_000);
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.info("Sampled request {} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), elapsedNanos / 1_000_000);
+            }
+        }
+    }
+}
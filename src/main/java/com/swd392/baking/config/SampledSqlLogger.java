@@ -0,0 +1,28 @@
+package com.swd392.baking.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ghi log một phần nhỏ câu SQL Hibernate sinh ra (theo baking.logging.sql.sample-rate) thay cho show-sql.
+ * Câu chậm được Hibernate ghi riêng qua hibernate.log_slow_query nên không phụ thuộc vào việc lấy mẫu.
+ */
+@Slf4j(topic = "com.swd392.baking.sql")
+public class SampledSqlLogger implements StatementInspector {
+
+    private final double sampleRate;
+
+    public SampledSqlLogger(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled SQL: {}", sql);
+        }
+        return sql;
+    }
+}
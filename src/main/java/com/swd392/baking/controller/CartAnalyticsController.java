@@ -0,0 +1,36 @@
+package com.swd392.baking.controller;
+
+import com.swd392.baking.model.CartAnalyticsReport;
+import com.swd392.baking.service.CartAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/analytics/cart")
+@RequiredArgsConstructor
+public class CartAnalyticsController {
+
+    private final CartAnalyticsService cartAnalyticsService;
+
+    /**
+     * GET /api/admin/analytics/cart?limit=20
+     * Tổng quan: tỉ lệ bỏ giỏ, phễu theo sản phẩm, các cặp sản phẩm hay được thêm cùng nhau
+     */
+    @GetMapping
+    public ResponseEntity<CartAnalyticsReport> getReport(
+            @RequestParam(required = false, defaultValue = "20") Integer limit) {
+        return ResponseEntity.ok(cartAnalyticsService.getReport(limit));
+    }
+
+    /**
+     * GET /api/admin/analytics/cart/products/{id}?limit=10
+     * Phễu của một sản phẩm và các sản phẩm hay được thêm cùng giỏ
+     */
+    @GetMapping("/products/{id}")
+    public ResponseEntity<CartAnalyticsReport> getProductReport(
+            @PathVariable Integer id,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(cartAnalyticsService.getProductReport(id, limit));
+    }
+}
@@ -1,33 +1,40 @@
 package com.swd392.baking.controller;
 
+import com.swd392.baking.config.CartSessionCookie;
 import com.swd392.baking.model.AddToCartRequest;
 import com.swd392.baking.model.CartDTO;
+import com.swd392.baking.model.CartSummaryDTO;
+import com.swd392.baking.service.CartEventService;
 import com.swd392.baking.service.CartService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
 public class CartController {
 
     private final CartService cartService;
+    private final CartEventService cartEventService;
+    private final CartSessionCookie cartSessionCookie;
 
     /**
      * Hiển thị trang giỏ hàng (Guest only)
      */
     @GetMapping("/cart")
-    public String viewCart(Model model, HttpSession session) {
-        String sessionId = getOrCreateSessionId(session);
+    public String viewCart(Model model, HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
         CartDTO cart = cartService.getCart(null, sessionId);
 
         model.addAttribute("cart", cart);
@@ -45,12 +52,12 @@ public class CartController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> addToCart(
             @Valid @RequestBody AddToCartRequest request,
-            HttpSession session) {
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            String sessionId = getOrCreateSessionId(session);
+            String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
 
             // Thêm vào giỏ hàng với sessionId
             CartDTO cart = cartService.addToCart(request, null, sessionId);
@@ -74,12 +81,32 @@ public class CartController {
      */
     @GetMapping("/api/cart")
     @ResponseBody
-    public ResponseEntity<CartDTO> getCart(HttpSession session) {
-        String sessionId = getOrCreateSessionId(session);
+    public ResponseEntity<CartDTO> getCart(HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
         CartDTO cart = cartService.getCart(null, sessionId);
         return ResponseEntity.ok(cart);
     }
 
+    /**
+     * API: Lấy tóm tắt giỏ hàng (số lượng, tổng tiền) cho badge trên header - Guest only
+     */
+    @GetMapping("/api/cart/summary")
+    @ResponseBody
+    public ResponseEntity<CartSummaryDTO> getCartSummary(
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
+        return ResponseEntity.ok(cartService.getCartSummary(null, sessionId));
+    }
+
+    /**
+     * API: Kênh SSE đẩy trạng thái giỏ hàng và thay đổi giá khuyến mãi (thay cho polling) - Guest only
+     */
+    @GetMapping(value = "/api/cart/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void cartEvents(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+        String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
+        cartEventService.subscribe(null, sessionId, httpRequest, httpResponse);
+    }
+
     /**
      * API: Cập nhật số lượng sản phẩm trong giỏ hàng (Guest only)
      */
@@ -88,12 +115,12 @@ public class CartController {
     public ResponseEntity<Map<String, Object>> updateCartItem(
             @PathVariable Integer cartItemId,
             @RequestParam Integer quantity,
-            HttpSession session) {
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            String sessionId = getOrCreateSessionId(session);
+            String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
 
             CartDTO cart = cartService.updateCartItemQuantity(cartItemId, quantity, null, sessionId);
 
@@ -117,12 +144,12 @@ public class CartController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> removeCartItem(
             @PathVariable Integer cartItemId,
-            HttpSession session) {
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            String sessionId = getOrCreateSessionId(session);
+            String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
 
             CartDTO cart = cartService.removeCartItem(cartItemId, null, sessionId);
 
@@ -144,12 +171,13 @@ public class CartController {
      */
     @DeleteMapping("/api/cart")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> clearCart(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> clearCart(
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            String sessionId = getOrCreateSessionId(session);
+            String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
 
             cartService.clearCart(null, sessionId);
 
@@ -170,12 +198,13 @@ public class CartController {
      */
     @GetMapping("/api/cart/preview")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getCartPreview(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getCartPreview(
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            String sessionId = getOrCreateSessionId(session);
+            String sessionId = getOrCreateSessionId(httpRequest, httpResponse);
             CartDTO cart = cartService.getCart(null, sessionId);
 
             response.put("success", true);
@@ -195,14 +224,9 @@ public class CartController {
     // ==================== Helper Methods ====================
 
     /**
-     * Lấy hoặc tạo mới sessionId cho guest user
+     * Lấy hoặc tạo mới sessionId cho guest user (cookie giỏ hàng đã ký, không dùng HttpSession)
      */
-    private String getOrCreateSessionId(HttpSession session) {
-        String sessionId = (String) session.getAttribute("sessionId");
-        if (sessionId == null || sessionId.isEmpty()) {
-            sessionId = UUID.randomUUID().toString();
-            session.setAttribute("sessionId", sessionId);
-        }
-        return sessionId;
+    private String getOrCreateSessionId(HttpServletRequest request, HttpServletResponse response) {
+        return cartSessionCookie.getOrCreate(request, response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.swd392.baking.controller;
+
+import com.swd392.baking.model.CatalogImportResult;
+import com.swd392.baking.service.CatalogImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/catalog")
+@RequiredArgsConstructor
+public class CatalogImportController {
+
+    private final CatalogImportService catalogImportService;
+
+    /**
+     * POST /api/admin/catalog/import
+     * Import bảng giá nhà cung cấp (CSV hoặc JSON), upsert theo SKU
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importCatalog(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try (InputStream in = file.getInputStream()) {
+            CatalogImportResult result = catalogImportService.importCatalog(resolveFormat(file, format), in);
+
+            response.put("success", result.getFailedRows() == 0);
+            response.put("message", "Đã import " + result.getImportedRows() + "/" + result.getTotalRows() + " dòng");
+            response.put("result", result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Lỗi import: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Lấy format từ tham số, nếu không có thì đoán theo đuôi file
+     */
+    private CatalogImportService.Format resolveFormat(MultipartFile file, String format) {
+        if (format != null && !format.isBlank()) {
+            return CatalogImportService.Format.valueOf(format.trim().toUpperCase());
+        }
+        String filename = file.getOriginalFilename();
+        if (filename != null && filename.toLowerCase().endsWith(".json")) {
+            return CatalogImportService.Format.JSON;
+        }
+        return CatalogImportService.Format.CSV;
+    }
+}
@@ -1,7 +1,7 @@
 package com.swd392.baking.controller;
 
-import com.swd392.baking.model.Category;
-import com.swd392.baking.service.CategoryService;
+import com.swd392.baking.model.CategoryDTO;
+import com.swd392.baking.service.CatalogCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,10 +13,10 @@ import java.util.List;
 public class CategoryController {
 
     @Autowired
-    private CategoryService categoryService;
+    private CatalogCacheService catalogCacheService;
 
     @GetMapping
-    public List<Category> getAllCategories() {
-        return categoryService.getAllParentWithChildren();
+    public List<CategoryDTO> getAllCategories() {
+        return catalogCacheService.getCategoryTree();
     }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.swd392.baking.controller;
 
+import com.swd392.baking.model.ProductCardDTO;
 import com.swd392.baking.model.ProductDTO;
+import com.swd392.baking.service.CatalogCacheService;
 import com.swd392.baking.service.ProductService;
+import com.swd392.baking.service.ProductStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,6 +17,7 @@ import java.util.List;
 public class HomeController {
 
     private final ProductService productService;
+    private final CatalogCacheService catalogCacheService;
 
     /**
      * Trang chủ - index.html
@@ -21,13 +25,17 @@ public class HomeController {
     @GetMapping("/")
     public String home(Model model) {
         // Lấy sản phẩm featured
-        List<ProductDTO> featuredProducts = productService.getFeaturedProducts();
+        List<ProductDTO> featuredProducts = catalogCacheService.getFeaturedProducts();
         model.addAttribute("featuredProducts", featuredProducts);
 
         // Lấy top 10 sản phẩm xem nhiều nhất
-        List<ProductDTO> topViewedProducts = productService.getTop10MostViewed();
+        List<ProductDTO> topViewedProducts = catalogCacheService.getTop10MostViewed();
         model.addAttribute("topViewedProducts", topViewedProducts);
 
+        // Top sản phẩm bán chạy 7 ngày (xếp hạng sẵn trong bộ nhớ)
+        List<ProductCardDTO> bestSellers = productService.getBestSellers(ProductStatsService.Window.WEEK, 10);
+        model.addAttribute("bestSellers", bestSellers);
+
         return "index"; // Trả về templates/index.html
     }
 
@@ -1,12 +1,27 @@
 package com.swd392.baking.controller;
 
+import com.swd392.baking.model.FacetResultDTO;
+import com.swd392.baking.model.ProductCardDTO;
 import com.swd392.baking.model.ProductDTO;
+import com.swd392.baking.service.CatalogCacheService;
+import com.swd392.baking.service.CatalogExportService;
+import com.swd392.baking.service.FacetService;
 import com.swd392.baking.service.ProductService;
+import com.swd392.baking.service.ProductStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -14,6 +29,9 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogCacheService catalogCacheService;
+    private final CatalogExportService catalogExportService;
+    private final FacetService facetService;
 
     /**
      * GET /api/products/{id}
@@ -21,7 +39,7 @@ public class ProductController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Integer id) {
-        ProductDTO product = productService.getProductById(id);
+        ProductDTO product = catalogCacheService.getProductById(id);
         return ResponseEntity.ok(product);
     }
 
@@ -31,7 +49,7 @@ public class ProductController {
      */
     @GetMapping("/top-viewed")
     public ResponseEntity<List<ProductDTO>> getTop10MostViewed() {
-        List<ProductDTO> products = productService.getTop10MostViewed();
+        List<ProductDTO> products = catalogCacheService.getTop10MostViewed();
         return ResponseEntity.ok(products);
     }
 
@@ -41,27 +59,119 @@ public class ProductController {
      */
     @GetMapping("/featured")
     public ResponseEntity<List<ProductDTO>> getFeaturedProducts() {
-        List<ProductDTO> products = productService.getFeaturedProducts();
+        List<ProductDTO> products = catalogCacheService.getFeaturedProducts();
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * GET /api/products/best-sellers?window=today|week|month&limit=10
+     * Sản phẩm bán chạy theo cửa sổ thời gian
+     */
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<ProductCardDTO>> getBestSellers(
+            @RequestParam(required = false, defaultValue = "week") String window,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        ProductStatsService.Window rankingWindow;
+        try {
+            rankingWindow = ProductStatsService.Window.valueOf(window.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getBestSellers(rankingWindow, limit));
+    }
+
     @GetMapping("/{id}/related")
-    public ResponseEntity<List<ProductDTO>> getRelatedProducts(
+    public ResponseEntity<List<ProductCardDTO>> getRelatedProducts(
             @PathVariable Integer id,
             @RequestParam(required = false, defaultValue = "8") Integer limit) {
-        List<ProductDTO> products = productService.getRelatedProductsByCategory(id, limit);
+        List<ProductCardDTO> products = productService.getRelatedProductsByCategory(id, limit);
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * GET /api/products/list-products
+     * Ghép JSON đã serialize sẵn của từng sản phẩm, không dựng lại DTO
+     */
     @GetMapping("/list-products")
-    public ResponseEntity<List<ProductDTO>> getAllProductIsActive() {
-        List<ProductDTO> products = productService.listAllProductIsActive();
-        return ResponseEntity.ok(products);
+    public void getAllProductIsActive(HttpServletResponse response) throws IOException {
+        writeJsonArray(catalogCacheService.getActiveProductsJson(), response);
     }
 
     @GetMapping("/by-category/{id}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Integer id) {
-        List<ProductDTO> products = productService.getActiveProductsByCategory(id);
+    public void getProductsByCategory(@PathVariable Integer id, HttpServletResponse response) throws IOException {
+        writeJsonArray(catalogCacheService.getProductsJsonByCategory(id), response);
+    }
+
+    /**
+     * GET /api/products/cards?categoryId=
+     * Lấy thẻ sản phẩm (id, tên, ảnh, khoảng giá) cho trang danh sách
+     */
+    @GetMapping("/cards")
+    public ResponseEntity<List<ProductCardDTO>> getProductCards(
+            @RequestParam(required = false) Integer categoryId) {
+        List<ProductCardDTO> products = categoryId != null
+                ? productService.getProductCardsByCategory(categoryId)
+                : productService.listAllProductCards();
         return ResponseEntity.ok(products);
     }
+
+    /**
+     * GET /api/products/facets?categoryId=&size=&price=&inStock=&featured=
+     * Lọc theo facet và trả về số lượng sản phẩm cho từng giá trị filter
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetResultDTO> getFacets(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Set<String> size,
+            @RequestParam(required = false) Set<String> price,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean featured) {
+        FacetResultDTO result = facetService.search(categoryId, size, price, inStock, featured);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * GET /api/products/export?format=ndjson|csv&since=2025-01-01T00:00:00
+     * Export catalog dạng stream, ghi từng sản phẩm ngay khi đọc được
+     */
+    @GetMapping("/export")
+    public void exportCatalog(
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            HttpServletResponse response) throws IOException {
+        CatalogExportService.Format exportFormat;
+        try {
+            exportFormat = CatalogExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported export format: " + format);
+            return;
+        }
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (exportFormat == CatalogExportService.Format.CSV) {
+            response.setContentType("text/csv");
+            response.setHeader("Content-Disposition", "attachment; filename=\"catalog.csv\"");
+        } else {
+            response.setContentType("application/x-ndjson");
+        }
+        catalogExportService.exportCatalog(exportFormat, since, response.getOutputStream());
+    }
+
+    private static void writeJsonArray(List<byte[]> elements, HttpServletResponse response) throws IOException {
+        int length = 2 + Math.max(0, elements.size() - 1);
+        for (byte[] element : elements) {
+            length += element.length;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(length);
+        OutputStream out = response.getOutputStream();
+        out.write('[');
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(elements.get(i));
+        }
+        out.write(']');
+    }
 }
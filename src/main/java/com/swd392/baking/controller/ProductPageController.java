@@ -1,6 +1,8 @@
 package com.swd392.baking.controller;
 
+import com.swd392.baking.model.ProductCardDTO;
 import com.swd392.baking.model.ProductDTO;
+import com.swd392.baking.service.CatalogCacheService;
 import com.swd392.baking.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -17,6 +19,7 @@ import java.util.List;
 public class ProductPageController {
 
     private final ProductService productService;
+    private final CatalogCacheService catalogCacheService;
 
     /**
      * Display product detail page
@@ -25,11 +28,11 @@ public class ProductPageController {
     public String getProductDetailPage(@PathVariable Integer id, Model model) {
         try {
             // Get product details
-            ProductDTO product = productService.getProductById(id);
+            ProductDTO product = catalogCacheService.getProductById(id);
             model.addAttribute("product", product);
 
             // Get related products from same category (excluding current product)
-            List<ProductDTO> relatedProducts = productService.getRelatedProductsByCategory(id, 8);
+            List<ProductCardDTO> relatedProducts = productService.getRelatedProductsByCategory(id, 8);
             model.addAttribute("relatedProducts", relatedProducts);
 
             return "product-page";
@@ -0,0 +1,23 @@
+package com.swd392.baking.event;
+
+import com.swd392.baking.model.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Thông điệp invalidation gửi tới mọi node. version tăng dần theo thứ tự phát (id dòng trong bảng
+ * cache_invalidations với transport JDBC), node dùng nó để bỏ qua bản trùng và báo mình đã đồng bộ tới đâu.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CacheInvalidation {
+
+    private final long version;
+    private final String aggregateType;
+    private final String aggregateId;
+    private final String entityType;
+    private final String entityId;
+    private final OutboxEvent.ChangeType changeType;
+}
@@ -0,0 +1,19 @@
+package com.swd392.baking.event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cache trong bộ nhớ của từng node nhận invalidation từ CacheInvalidationBus. Mọi node đều nhận
+ * (khác với OutboxSubscriber chỉ một node xử lý), nên đây là nơi cho cache cục bộ như facet index, catalog cache.
+ */
+public interface CacheInvalidationListener {
+
+    // Aggregate type quan tâm (Product, Category, CartOwner)
+    Set<String> aggregateTypes();
+
+    void onInvalidation(List<CacheInvalidation> invalidations);
+
+    // Node đã lỡ một đoạn thông điệp (mất kết nối quá lâu): bỏ toàn bộ cache để hội tụ lại
+    void invalidateAll();
+}
@@ -0,0 +1,27 @@
+package com.swd392.baking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra trong transaction của CartService cho mỗi thay đổi giỏ hàng; listener nhận sau commit.
+ * productId = null là sự kiện cấp giỏ hàng (tạo, xóa hết, hết hạn, gộp, checkout), còn lại là sự kiện cấp dòng.
+ */
+@Getter
+@AllArgsConstructor
+public class CartActivityEvent {
+
+    public enum Type {
+        CREATED, ADDED, QUANTITY_CHANGED, REMOVED, CLEARED, EXPIRED, MERGED, CHECKED_OUT
+    }
+
+    private final Type type;
+    private final Integer cartId;
+    private final Integer productId;
+
+    // Số lượng thay đổi, âm khi giảm
+    private final int quantity;
+
+    // Chỉ dùng cho MERGED: giỏ guest đã gộp vào cartId
+    private final Integer sourceCartId;
+}
@@ -0,0 +1,31 @@
+package com.swd392.baking.event;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Kênh phát invalidation giữa các node. Bản mặc định là bảng cache_invalidations được mọi node poll
+ * (baking.invalidation.transport=jdbc); in-memory dùng cho test, giao ngay trong cùng JVM.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Phát các thay đổi tới mọi node (kể cả node hiện tại); version do transport gán.
+     * Ném exception nếu không phát được để outbox giao lại.
+     */
+    void publish(List<CacheInvalidation> invalidations);
+
+    /**
+     * Đăng ký nơi nhận thông điệp của node này
+     */
+    void subscribe(Receiver receiver);
+
+    /**
+     * accept được gọi sau mỗi lần đồng bộ thành công, danh sách có thể rỗng
+     */
+    interface Receiver extends Consumer<List<CacheInvalidation>> {
+
+        // Transport không đảm bảo đã nhận đủ (ví dụ lâu không poll được), node phải bỏ toàn bộ cache
+        void resync();
+    }
+}
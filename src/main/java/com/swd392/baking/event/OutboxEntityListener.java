@@ -0,0 +1,35 @@
+package com.swd392.baking.event;
+
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.service.OutboxService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener ghi dòng outbox ngay trong transaction đang flush thay đổi của entity.
+ * Hibernate lấy listener từ Spring container nên có thể inject bean.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxEntityListener {
+
+    private final OutboxService outboxService;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        outboxService.recordEntityChange(entity, OutboxEvent.ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        outboxService.recordEntityChange(entity, OutboxEvent.ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        outboxService.recordEntityChange(entity, OutboxEvent.ChangeType.DELETED);
+    }
+}
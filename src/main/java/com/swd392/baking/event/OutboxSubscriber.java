@@ -0,0 +1,21 @@
+package com.swd392.baking.event;
+
+import com.swd392.baking.model.OutboxEvent;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bean nhận các event outbox đã commit. Giao ít nhất một lần (at-least-once) và theo thứ tự ghi
+ * trong mỗi aggregate, nên handler phải idempotent: coi event là tín hiệu "aggregate đã đổi" và đọc lại trạng thái.
+ * Mỗi event chỉ được một node xử lý; cache trong bộ nhớ của từng node dùng CacheInvalidationListener.
+ * Trong một lô, các subscriber được gọi theo @Order.
+ */
+public interface OutboxSubscriber {
+
+    // Aggregate type quan tâm (Product, Category, Cart)
+    Set<String> aggregateTypes();
+
+    // Ném exception để cả lô được giao lại ở lần poll sau
+    void onEvents(List<OutboxEvent> events);
+}
@@ -0,0 +1,18 @@
+package com.swd392.baking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phát ra trong transaction checkout cho mỗi dòng giỏ hàng đã bán; listener nhận sau commit
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSoldEvent {
+
+    private final Integer productId;
+    private final int quantity;
+    private final LocalDateTime soldAt;
+}
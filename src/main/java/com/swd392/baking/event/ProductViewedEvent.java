@@ -0,0 +1,14 @@
+package com.swd392.baking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi trang chi tiết sản phẩm được xem
+ */
+@Getter
+@AllArgsConstructor
+public class ProductViewedEvent {
+
+    private final Integer productId;
+}
@@ -1,17 +1,25 @@
 package com.swd392.baking.model;
 
+import com.swd392.baking.event.OutboxEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@EntityListeners(OutboxEntityListener.class)
+// Mỗi giỏ có đúng một trong hai cột user_id / session_id; SQL Server coi NULL là bằng nhau trong unique key
+// nên (user_id, session_id) là duy nhất theo chủ giỏ, chặn hai request đầu tiên cùng tạo giỏ.
+// Hibernate sinh filtered index cho SQL Server nên index thật được tạo trong db/schema-sqlserver.sql
+@Table(name = "carts", uniqueConstraints = @UniqueConstraint(
+        name = "uk_carts_owner",
+        columnNames = {"user_id", "session_id"}))
 @Data
 @Builder
 @NoArgsConstructor
@@ -35,6 +43,12 @@ public class Cart {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Optimistic locking: mọi thay đổi giỏ hàng đều tăng version của cart
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CartItem> cartItems = new ArrayList<>();
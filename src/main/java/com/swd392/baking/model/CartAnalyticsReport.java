@@ -0,0 +1,62 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Báo cáo analytics giỏ hàng, tính hoàn toàn từ bộ đếm trong bộ nhớ
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartAnalyticsReport {
+
+    // Thời điểm bắt đầu tích lũy số liệu
+    private LocalDateTime since;
+
+    private Long cartsCreated;
+    private Long cartsCleared;
+    private Long cartsAbandoned;
+    private Long cartsMerged;
+    private Long cartsCheckedOut;
+    // cartsCheckedOut / cartsCreated
+    private Double conversionRate;
+    // cartsAbandoned / cartsCreated
+    private Double abandonmentRate;
+
+    private List<ProductFunnel> products;
+    private List<ProductPair> pairs;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ProductFunnel {
+        private Integer productId;
+        private Long views;
+        private Long addToCarts;
+        private Long addedQuantity;
+        private Long removedQuantity;
+        private Long clearedQuantity;
+        private Long abandonedQuantity;
+        // addToCarts / views
+        private Double viewToCartRate;
+        // abandonedQuantity / addedQuantity
+        private Double abandonmentRate;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ProductPair {
+        private Integer productId;
+        private Integer otherProductId;
+        // Số giỏ hàng từng chứa cả hai sản phẩm
+        private Long carts;
+    }
+}
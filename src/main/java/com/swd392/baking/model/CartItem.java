@@ -1,16 +1,21 @@
 package com.swd392.baking.model;
 
+import com.swd392.baking.event.OutboxEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@EntityListeners(OutboxEntityListener.class)
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(
+        name = "uk_cart_items_line",
+        columnNames = {"cart_id", "product_id", "size_selected", "price_id"}))
 @Data
 @Builder
 @NoArgsConstructor
@@ -45,6 +50,11 @@ public class CartItem {
     @Column(name = "price_id")
     private Integer priceId;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -64,9 +74,14 @@ public class CartItem {
 
     // Tính subtotal
     public BigDecimal getSubTotal() {
+        return Money.toBigDecimal(getSubTotalMinor());
+    }
+
+    // Subtotal theo đơn vị nhỏ nhất (Money), dùng khi cộng tổng giỏ hàng
+    public long getSubTotalMinor() {
         if (price != null && quantity != null) {
-            return price.multiply(BigDecimal.valueOf(quantity));
+            return Money.times(Money.of(price), quantity);
         }
-        return BigDecimal.ZERO;
+        return Money.ZERO;
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Tóm tắt giỏ hàng cho badge trên header (không có danh sách item)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryDTO {
+    private Integer totalItems;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,29 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportResult {
+
+    private Integer totalRows;
+    private Integer importedRows;
+    private Integer failedRows;
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private Integer rowNumber;
+        private String sku;
+        private String message;
+    }
+}
@@ -0,0 +1,32 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong file import catalog (một SKU).
+ * Nếu có productId thì gắn vào sản phẩm có sẵn, nếu không thì tìm/tạo sản phẩm theo productName + categoryId.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportRow {
+    private Integer productId;
+    private String productName;
+    private Integer categoryId;
+    private String mainImageUrl;
+    private Integer stockQuantity;
+
+    private String sku;
+    private String size;
+    private BigDecimal regularPrice;
+    private BigDecimal promotionPrice;
+    private LocalDateTime promotionStart;
+    private LocalDateTime promotionEnd;
+}
@@ -1,7 +1,6 @@
 package com.swd392.baking.model;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.swd392.baking.event.OutboxEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,6 +8,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners(OutboxEntityListener.class)
 @Table(name = "CATEGORIES")
 @Getter
 @Setter
@@ -39,11 +39,9 @@ public class Category {
     // Self Relationship: Parent
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
-    @JsonBackReference
     private Category parent;
 
     // Self Relationship: Children
     @OneToMany(mappedBy = "parent", fetch = FetchType.LAZY)
-    @JsonManagedReference
     private List<Category> children;
 }
\ No newline at end of file
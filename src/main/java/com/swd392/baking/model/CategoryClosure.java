@@ -0,0 +1,42 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Bảng closure của cây category: mỗi cặp (tổ tiên, hậu duệ), kể cả chính nó với depth = 0.
+ * Được dựng lại từ CATEGORIES mỗi khi cây thay đổi, nên "mọi sản phẩm trong cây con" chỉ cần một query.
+ */
+@Entity
+@Table(name = "CATEGORY_CLOSURE", indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id")
+})
+@IdClass(CategoryClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Integer ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Integer descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer ancestorId;
+        private Integer descendantId;
+    }
+}
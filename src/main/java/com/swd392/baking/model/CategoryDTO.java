@@ -0,0 +1,22 @@
+package com.swd392.baking.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Node của cây category trả cho /api/categories, dựng đầy đủ trong transaction (không lazy load khi serialize)
+ */
+@Value
+@Builder
+public class CategoryDTO {
+    private Long id;
+    private String name;
+    private String description;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private List<CategoryDTO> children;
+}
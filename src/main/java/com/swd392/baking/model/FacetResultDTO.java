@@ -0,0 +1,30 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả lọc facet: danh sách sản phẩm khớp và số lượng theo từng giá trị facet.
+ * Số lượng của mỗi facet được tính với bộ lọc của các facet còn lại (không tính chính nó).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetResultDTO {
+    private Integer totalProducts;
+    private List<Integer> productIds;
+
+    // categoryId -> số sản phẩm (tính cả category con)
+    private Map<Integer, Integer> categories;
+    private Map<String, Integer> sizes;
+    // "0-25", "25-50", ..., "100+" theo baking.facet.price-buckets
+    private Map<String, Integer> priceBuckets;
+    private Integer inStock;
+    private Integer featured;
+}
@@ -0,0 +1,63 @@
+package com.swd392.baking.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Chuyển cột image_urls (JSON array) sang List<String> một lần khi load entity.
+ * Danh sách trả về là immutable nên Hibernate không cần deep-copy để dirty checking.
+ */
+@Converter
+@Immutable
+public class ImageUrlsConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> URL_LIST = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(urls);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize image URLs", e);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            List<String> urls = MAPPER.readValue(json, URL_LIST);
+            // Phần tử null trong JSON (ví dụ ["a", null]) bị bỏ qua thay vì làm hỏng cả lần load entity
+            return urls == null ? List.of() : urls.stream().filter(Objects::nonNull).toList();
+        } catch (JsonProcessingException e) {
+            return parseLegacy(json);
+        }
+    }
+
+    // Dữ liệu cũ nhập tay không phải JSON hợp lệ, ví dụ: [url1, url2]
+    private static List<String> parseLegacy(String value) {
+        String trimmed = value.trim();
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        return Arrays.stream(trimmed.split(","))
+                .map(url -> url.trim().replace("\"", ""))
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,49 @@
+package com.swd392.baking.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Phép tính tiền trên long đơn vị nhỏ nhất (1/100, đúng scale 2 của các cột giá), không tạo object.
+ * BigDecimal chỉ dùng ở biên: entity / DTO / JSON đổi sang long bằng {@link #of} và ngược lại bằng
+ * {@link #toBigDecimal}. Tràn số ném ArithmeticException thay vì âm thầm sai.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long ZERO = 0L;
+
+    private Money() {
+    }
+
+    /**
+     * Đổi số tiền sang đơn vị nhỏ nhất; null là 0, lẻ hơn 1/100 ném ArithmeticException
+     */
+    public static long of(BigDecimal amount) {
+        return amount == null ? ZERO : amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long plus(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long times(long minor, int quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    /**
+     * Phần trăm giảm từ regular xuống promotion, làm tròn half-up như BigDecimal.ROUND_HALF_UP trước đây
+     */
+    public static int discountPercentage(long regular, long promotion) {
+        if (regular <= 0) {
+            return 0;
+        }
+        long discount = regular - promotion;
+        long scaled = Math.multiplyExact(Math.abs(discount), 100L);
+        long rounded = (scaled / regular) + ((scaled % regular) * 2 >= regular ? 1 : 0);
+        return Math.toIntExact(discount < 0 ? -rounded : rounded);
+    }
+}
@@ -1,5 +1,6 @@
 package com.swd392.baking.model;
 
+import com.swd392.baking.event.OutboxEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -7,7 +8,9 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -15,7 +18,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "PRODUCTS")
+@EntityListeners(OutboxEntityListener.class)
+@Table(name = "PRODUCTS", indexes = {
+        @Index(name = "idx_products_category_active", columnList = "category_id, is_active")
+})
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,12 +52,18 @@ public class Product {
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity = 0;
 
+    // Số lượng đang được giữ trong giỏ hàng, chỉ cập nhật bằng câu UPDATE có điều kiện
+    @ColumnDefault("0")
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity = 0;
+
     @Column(name = "main_image_url", length = 500)
     private String mainImageUrl;
 
     @Lob
     @Column(name = "image_urls", columnDefinition = "NVARCHAR(MAX)")
-    private String imageUrls; // JSON array: ["url1", "url2", "url3"]
+    @Convert(converter = ImageUrlsConverter.class)
+    private List<String> imageUrls = List.of(); // JSON array: ["url1", "url2", "url3"]
 
     @Column(name = "is_featured", nullable = false)
     private Boolean isFeatured = false;
@@ -87,38 +100,12 @@ public class Product {
         productSize.setProduct(null);
     }
 
-    // Transient method to parse image URLs from JSON
-    @Transient
-    public List<String> getImageUrlsList() {
-        if (imageUrls == null || imageUrls.isEmpty()) {
-            return new ArrayList<>();
-        }
-        try {
-            // Simple JSON parsing - you can use Jackson for complex cases
-            return List.of(imageUrls.replace("[", "")
-                    .replace("]", "")
-                    .replace("\"", "")
-                    .split(","));
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
+    public List<String> getImageUrls() {
+        return imageUrls == null ? List.of() : imageUrls;
     }
 
-    @Transient
-    public void setImageUrlsList(List<String> urls) {
-        if (urls == null || urls.isEmpty()) {
-            this.imageUrls = null;
-            return;
-        }
-        // Convert to JSON array format
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < urls.size(); i++) {
-            json.append("\"").append(urls.get(i)).append("\"");
-            if (i < urls.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        this.imageUrls = json.toString();
+    // Luôn giữ bản immutable để danh sách đã parse được dùng chung, không cần copy
+    public void setImageUrls(List<String> urls) {
+        this.imageUrls = urls == null ? List.of() : List.copyOf(urls);
     }
 }
\ No newline at end of file
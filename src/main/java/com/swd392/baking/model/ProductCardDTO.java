@@ -0,0 +1,31 @@
+package com.swd392.baking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO gọn cho thẻ sản phẩm ở các trang danh sách (không có description, imageUrls, sizes)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDTO {
+    private Integer productId;
+    private String productName;
+    private Integer categoryId;
+    private String size;
+    private Integer stockQuantity;
+    private String mainImageUrl;
+    private Boolean isFeatured;
+    private Integer viewCount;
+    private Integer soldCount;
+
+    // Khoảng giá tính sẵn trong SQL từ PRODUCTS_SIZE
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
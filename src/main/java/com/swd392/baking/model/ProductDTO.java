@@ -1,17 +1,17 @@
 package com.swd392.baking.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
-@Data
+/**
+ * Immutable: một instance được CatalogCacheService dùng chung cho mọi request
+ */
+@Value
 @Builder
-@NoArgsConstructor
-@AllArgsConstructor
 public class ProductDTO {
     private Integer productId;
     private String productName;
@@ -22,6 +22,7 @@ public class ProductDTO {
     private String mainImageUrl;
     private List<String> imageUrls;
     private Boolean isFeatured;
+    private Boolean isActive;
     private Integer viewCount;
     private Integer soldCount;
 
@@ -29,4 +30,6 @@ public class ProductDTO {
     private BigDecimal minPrice;
     private BigDecimal maxPrice;
     private List<ProductSizeDTO> sizes;
+
+    private LocalDateTime updatedAt;
 }
@@ -0,0 +1,33 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lưu int[] dưới dạng mảng byte (4 byte / id) để danh sách id gọn nhất có thể
+ */
+@Converter
+public class ProductIdsConverter implements AttributeConverter<int[], byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(int[] ids) {
+        if (ids == null || ids.length == 0) {
+            return new byte[0];
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ids.length * Integer.BYTES);
+        buffer.asIntBuffer().put(ids);
+        return buffer.array();
+    }
+
+    @Override
+    public int[] convertToEntityAttribute(byte[] bytes) {
+        if (bytes == null || bytes.length < Integer.BYTES) {
+            return new int[0];
+        }
+        int[] ids = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(ids);
+        return ids;
+    }
+}
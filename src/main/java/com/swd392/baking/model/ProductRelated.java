@@ -0,0 +1,31 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Danh sách sản phẩm liên quan (đã xếp hạng) tính sẵn cho mỗi sản phẩm
+ */
+@Entity
+@Table(name = "product_related")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRelated {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    // Top-N product_id theo thứ tự điểm giảm dần
+    @Convert(converter = ProductIdsConverter.class)
+    @Column(name = "related_ids", length = 1024, nullable = false)
+    private int[] relatedIds;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
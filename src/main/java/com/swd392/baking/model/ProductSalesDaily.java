@@ -0,0 +1,42 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Số lượng bán theo ngày của từng sản phẩm, dùng để dựng lại bảng xếp hạng bán chạy sau khi khởi động
+ */
+@Entity
+@Table(name = "product_sales_daily", indexes = {
+        @Index(name = "idx_product_sales_daily_date", columnList = "sale_date")
+})
+@IdClass(ProductSalesDaily.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDaily {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer productId;
+        private LocalDate saleDate;
+    }
+}
@@ -1,5 +1,6 @@
 package com.swd392.baking.model;
 
+import com.swd392.baking.event.OutboxEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -15,7 +16,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "PRODUCTS_SIZE")
+@EntityListeners(OutboxEntityListener.class)
+@Table(name = "PRODUCTS_SIZE", indexes = {
+        @Index(name = "idx_products_size_promotion_start", columnList = "promotion_start"),
+        @Index(name = "idx_products_size_promotion_end", columnList = "promotion_end")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -81,15 +86,18 @@ public class ProductSize {
         return isPromotionActive() ? promotionPrice : regularPrice;
     }
 
+    // Giá hiệu lực theo đơn vị nhỏ nhất (Money) để so sánh / cộng dồn không cần BigDecimal
+    @Transient
+    public long getEffectivePriceMinor() {
+        return Money.of(getEffectivePrice());
+    }
+
     // Helper method to calculate discount percentage
     @Transient
     public Integer getDiscountPercentage() {
         if (!isPromotionActive() || promotionPrice == null) {
             return 0;
         }
-        BigDecimal discount = regularPrice.subtract(promotionPrice);
-        return discount.multiply(BigDecimal.valueOf(100))
-                .divide(regularPrice, 0, BigDecimal.ROUND_HALF_UP)
-                .intValue();
+        return Money.discountPercentage(Money.of(regularPrice), Money.of(promotionPrice));
     }
 }
\ No newline at end of file
@@ -1,16 +1,15 @@
 package com.swd392.baking.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.math.BigDecimal;
 
-@Data
+/**
+ * Immutable: một instance được CatalogCacheService dùng chung cho mọi request
+ */
+@Value
 @Builder
-@NoArgsConstructor
-@AllArgsConstructor
 public class ProductSizeDTO {
     private Integer priceId;
     private String size;
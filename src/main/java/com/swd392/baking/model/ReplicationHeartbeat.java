@@ -0,0 +1,25 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một dòng duy nhất được ghi định kỳ lên primary; đọc lại trên replica để đo độ trễ replication
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationHeartbeat {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    // Epoch millis lúc primary ghi, tránh lệch múi giờ giữa các server
+    @Column(name = "beat_millis", nullable = false)
+    private Long beatMillis;
+}
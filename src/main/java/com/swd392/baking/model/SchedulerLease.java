@@ -0,0 +1,31 @@
+package com.swd392.baking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease cho job chỉ được chạy trên một node tại một thời điểm (ví dụ relay outbox).
+ * Node giữ lease gia hạn locked_until mỗi lần chạy; node khác chỉ lấy được khi lease đã hết hạn.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    // node-id kèm hậu tố ngẫu nhiên của process đang giữ lease
+    @Column(name = "owner", length = 100, nullable = false)
+    private String owner;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
@@ -0,0 +1,30 @@
+package com.swd392.baking.repository;
+
+import com.swd392.baking.model.CacheInvalidationRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRecordRepository extends JpaRepository<CacheInvalidationRecord, Long> {
+
+    // Không readOnly để luôn đọc primary: replica trễ có thể giấu dòng mới quá thời gian chờ của con trỏ
+    @Transactional
+    @Query("SELECT r FROM CacheInvalidationRecord r WHERE r.id > :afterId ORDER BY r.id")
+    List<CacheInvalidationRecord> findAfter(Long afterId, Pageable pageable);
+
+    @Transactional
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM CacheInvalidationRecord r")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CacheInvalidationRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+}
@@ -1,9 +1,14 @@
 package com.swd392.baking.repository;
 
 import com.swd392.baking.model.CartItem;
+import com.swd392.baking.model.CartSummaryDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +20,41 @@ public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
     Optional<CartItem> findByCartCartIdAndProductProductIdAndSizeSelectedAndPriceId(
             Integer cartId, Integer productId, String sizeSelected, Integer priceId);
 
+    // Cộng dồn số lượng ngay trong DB (không đọc - sửa - ghi), trả về 0 nếu dòng chưa tồn tại
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = ci.quantity + :quantity, ci.version = ci.version + 1,"
+            + " ci.updatedAt = CURRENT_TIMESTAMP"
+            + " WHERE ci.cart.cartId = :cartId AND ci.product.productId = :productId"
+            + " AND (ci.sizeSelected = :sizeSelected OR (ci.sizeSelected IS NULL AND :sizeSelected IS NULL))"
+            + " AND (ci.priceId = :priceId OR (ci.priceId IS NULL AND :priceId IS NULL))")
+    int incrementQuantity(Integer cartId, Integer productId, String sizeSelected, Integer priceId, Integer quantity);
+
+    // Tổng số lượng và tổng tiền của giỏ hàng, chỉ một câu aggregate trên cart_items
+    @Query("SELECT new com.swd392.baking.model.CartSummaryDTO(CAST(COALESCE(SUM(ci.quantity), 0) AS Integer),"
+            + " COALESCE(SUM(ci.price * ci.quantity), 0)) FROM CartItem ci WHERE ci.cart.sessionId = :sessionId")
+    CartSummaryDTO summarizeBySessionId(String sessionId);
+
+    @Query("SELECT new com.swd392.baking.model.CartSummaryDTO(CAST(COALESCE(SUM(ci.quantity), 0) AS Integer),"
+            + " COALESCE(SUM(ci.price * ci.quantity), 0)) FROM CartItem ci WHERE ci.cart.userId = :userId")
+    CartSummaryDTO summarizeByUserId(Integer userId);
+
+    // Các giỏ hàng đang chứa những size này (để cập nhật và báo thay đổi giá)
+    @Query("SELECT DISTINCT c.cartId AS cartId, c.userId AS userId, c.sessionId AS sessionId, ci.priceId AS priceId"
+            + " FROM CartItem ci JOIN ci.cart c WHERE ci.priceId IN :priceIds")
+    List<CartLineOwnerView> findCartOwnersByPriceIds(Collection<Integer> priceIds);
+
+    // Áp giá hiệu lực mới cho mọi dòng giỏ hàng của một size, trả về số dòng đã đổi giá
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.price = :price, ci.version = ci.version + 1, ci.updatedAt = CURRENT_TIMESTAMP"
+            + " WHERE ci.priceId = :priceId AND ci.price <> :price")
+    int repriceLines(Integer priceId, BigDecimal price);
+
     void deleteByCartCartId(Integer cartId);
-}
\ No newline at end of file
+
+    // Đếm số giỏ hàng mua kèm cho từng cặp sản phẩm (dùng cho sản phẩm liên quan)
+    @Query("SELECT a.product.productId AS productId, b.product.productId AS otherProductId,"
+            + " COUNT(DISTINCT a.cart.cartId) AS cartCount FROM CartItem a, CartItem b"
+            + " WHERE a.cart = b.cart AND a.product.productId < b.product.productId"
+            + " GROUP BY a.product.productId, b.product.productId")
+    List<ProductPairCountView> countProductPairs();
+}
@@ -0,0 +1,15 @@
+package com.swd392.baking.repository;
+
+/**
+ * Projection: giỏ hàng nào đang chứa ProductSize nào
+ */
+public interface CartLineOwnerView {
+
+    Integer getCartId();
+
+    Integer getUserId();
+
+    String getSessionId();
+
+    Integer getPriceId();
+}
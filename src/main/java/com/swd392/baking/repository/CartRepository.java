@@ -1,10 +1,14 @@
 package com.swd392.baking.repository;
 
 import com.swd392.baking.model.Cart;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,12 +18,24 @@ public interface CartRepository extends JpaRepository<Cart, Integer> {
 
     Optional<Cart> findBySessionId(String sessionId);
 
+    long countBySessionId(String sessionId);
+
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.product WHERE c.userId = :userId")
     Optional<Cart> findByUserIdWithItems(Integer userId);
 
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.product WHERE c.sessionId = :sessionId")
     Optional<Cart> findBySessionIdWithItems(String sessionId);
 
+    // Cập nhật thời gian hoạt động của cart mà không cần load/kiểm tra version
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = CURRENT_TIMESTAMP WHERE c.cartId = :cartId")
+    int touch(Integer cartId);
+
+    // Giỏ hàng không hoạt động: guest từ trước guestCutoff, user đã đăng nhập từ trước userCutoff
+    @Query("SELECT c.cartId FROM Cart c WHERE (c.userId IS NULL AND c.updatedAt < :guestCutoff)"
+            + " OR (c.userId IS NOT NULL AND c.updatedAt < :userCutoff) ORDER BY c.updatedAt")
+    List<Integer> findIdleCartIds(LocalDateTime guestCutoff, LocalDateTime userCutoff, Pageable pageable);
+
     void deleteByUserId(Integer userId);
 
     void deleteBySessionId(String sessionId);
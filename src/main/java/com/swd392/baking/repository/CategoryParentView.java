@@ -0,0 +1,11 @@
+package com.swd392.baking.repository;
+
+/**
+ * Projection: id của category và id category cha (null nếu là gốc)
+ */
+public interface CategoryParentView {
+
+    Long getId();
+
+    Long getParentId();
+}
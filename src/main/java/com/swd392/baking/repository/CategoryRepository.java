@@ -2,11 +2,16 @@ package com.swd392.baking.repository;
 
 import com.swd392.baking.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-    List<Category> findByParentIsNull(); // Lấy danh mục cha
+    List<Category> findAllByOrderByIdAsc(); // Toàn bộ danh mục, dựng cây trong bộ nhớ
+
+    // Lấy cặp (id, parentId) của toàn bộ cây để dựng bảng closure
+    @Query("SELECT c.id AS id, p.id AS parentId FROM Category c LEFT JOIN c.parent p ORDER BY c.id")
+    List<CategoryParentView> findAllParentLinks();
 }
\ No newline at end of file
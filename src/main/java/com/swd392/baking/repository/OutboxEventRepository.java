@@ -0,0 +1,38 @@
+package com.swd392.baking.repository;
+
+import com.swd392.baking.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Các event chưa relay, theo thứ tự ghi; không readOnly để luôn đọc primary, replica trễ sẽ làm giao lại event đã xử lý
+    @Transactional
+    @Query("SELECT e FROM OutboxEvent e WHERE e.processedAt IS NULL ORDER BY e.id")
+    List<OutboxEvent> findUnprocessed(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(Collection<Long> ids, LocalDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int incrementAttempts(Collection<Long> ids);
+
+    // Dọn các event đã relay quá thời gian lưu giữ
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :cutoff")
+    int deleteProcessedBefore(LocalDateTime cutoff);
+}
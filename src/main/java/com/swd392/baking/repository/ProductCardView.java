@@ -0,0 +1,31 @@
+package com.swd392.baking.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection cho thẻ sản phẩm: chỉ các cột cần hiển thị, không đụng tới cột LOB
+ */
+public interface ProductCardView {
+
+    Integer getProductId();
+
+    String getProductName();
+
+    Integer getCategoryId();
+
+    String getSize();
+
+    Integer getStockQuantity();
+
+    String getMainImageUrl();
+
+    Boolean getIsFeatured();
+
+    Integer getViewCount();
+
+    Integer getSoldCount();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+}
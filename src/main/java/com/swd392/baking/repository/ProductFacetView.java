@@ -0,0 +1,19 @@
+package com.swd392.baking.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection cho facet engine: chỉ các thuộc tính dùng để lọc/đếm
+ */
+public interface ProductFacetView {
+
+    Integer getProductId();
+
+    Integer getCategoryId();
+
+    Boolean getIsFeatured();
+
+    Integer getAvailableQuantity();
+
+    BigDecimal getMinPrice();
+}
@@ -0,0 +1,13 @@
+package com.swd392.baking.repository;
+
+/**
+ * Số giỏ hàng chứa đồng thời hai sản phẩm (productId < otherProductId)
+ */
+public interface ProductPairCountView {
+
+    Integer getProductId();
+
+    Integer getOtherProductId();
+
+    Long getCartCount();
+}
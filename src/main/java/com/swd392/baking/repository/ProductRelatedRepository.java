@@ -0,0 +1,15 @@
+package com.swd392.baking.repository;
+
+import com.swd392.baking.model.ProductRelated;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProductRelatedRepository extends JpaRepository<ProductRelated, Integer> {
+
+    @Query("SELECT MAX(r.computedAt) FROM ProductRelated r")
+    LocalDateTime findLatestComputedAt();
+}
@@ -1,25 +1,48 @@
 package com.swd392.baking.repository;
 
 import com.swd392.baking.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
-    // Lấy 10 sản phẩm có view_count cao nhất
-    List<Product> findTop10ByIsActiveTrueOrderByViewCountDesc();
+    // Giá hiệu lực của một ProductSize (giống ProductSize.getEffectivePrice) tính trong SQL
+    String EFFECTIVE_PRICE = "CASE WHEN ps.promotionPrice IS NOT NULL"
+            + " AND ps.promotionStart < CURRENT_TIMESTAMP AND ps.promotionEnd > CURRENT_TIMESTAMP"
+            + " THEN ps.promotionPrice ELSE ps.regularPrice END";
+
+    String CARD_SELECT = "SELECT p.productId AS productId, p.productName AS productName,"
+            + " p.categoryId AS categoryId, p.size AS size, p.stockQuantity AS stockQuantity,"
+            + " p.mainImageUrl AS mainImageUrl, p.isFeatured AS isFeatured,"
+            + " p.viewCount AS viewCount, p.soldCount AS soldCount,"
+            + " MIN(" + EFFECTIVE_PRICE + ") AS minPrice, MAX(" + EFFECTIVE_PRICE + ") AS maxPrice"
+            + " FROM Product p LEFT JOIN p.productSizes ps";
+
+    String FACET_SELECT = "SELECT p.productId AS productId, p.categoryId AS categoryId, p.isFeatured AS isFeatured,"
+            + " p.stockQuantity - p.reservedQuantity AS availableQuantity, MIN(" + EFFECTIVE_PRICE + ") AS minPrice"
+            + " FROM Product p LEFT JOIN p.productSizes ps";
+
+    String FACET_GROUP_BY = " GROUP BY p.productId, p.categoryId, p.isFeatured, p.stockQuantity, p.reservedQuantity";
+
+    String CARD_GROUP_BY = " GROUP BY p.productId, p.productName, p.categoryId, p.size, p.stockQuantity,"
+            + " p.mainImageUrl, p.isFeatured, p.viewCount, p.soldCount";
 
     // Lấy sản phẩm theo ID (chỉ active)
     Optional<Product> findByProductIdAndIsActiveTrue(Integer productId);
 
-    // Lấy sản phẩm featured
-    List<Product> findByIsFeaturedTrueAndIsActiveTrue();
-
     // Tìm theo category
     List<Product> findByCategoryIdAndIsActiveTrue(Integer categoryId);
 
@@ -27,7 +50,87 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     @Query("SELECT p FROM Product p WHERE p.categoryId = ?1 AND p.isActive = true")
     List<Product> findProductsByCategory(Integer categoryId);
 
+    // Id sản phẩm active của category và toàn bộ category con (dùng bảng closure)
+    @Query("SELECT p.productId FROM Product p WHERE p.isActive = true AND p.categoryId IN"
+            + " (SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = ?1) ORDER BY p.productId")
+    List<Integer> findActiveProductIdsInCategoryTree(Integer categoryId);
+
     //Lấy tất ca product
-    @Query("SELECT p FROM Product p WHERE p.isActive = true")
+    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.productId")
     List<Product> listAllProducts();
-}
\ No newline at end of file
+
+    // Chỉ lấy categoryId của sản phẩm active
+    @Query("SELECT p.categoryId FROM Product p WHERE p.productId = ?1 AND p.isActive = true")
+    Optional<Integer> findActiveCategoryIdByProductId(Integer productId);
+
+    // Giữ hàng: chỉ thành công khi số lượng còn lại (stock - reserved) đủ, trả về số dòng cập nhật
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity + :quantity"
+            + " WHERE p.productId = :productId AND p.stockQuantity - p.reservedQuantity >= :quantity")
+    int reserveStock(Integer productId, Integer quantity);
+
+    // Trả lại hàng đã giữ
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = CASE WHEN p.reservedQuantity > :quantity"
+            + " THEN p.reservedQuantity - :quantity ELSE 0 END WHERE p.productId = :productId")
+    int releaseStock(Integer productId, Integer quantity);
+
+    // Checkout: hàng đã giữ trở thành hàng đã bán (trừ tồn kho và số lượng giữ).
+    // Trả về 0 nếu tồn kho không đủ (ví dụ phần giữ hàng đã bị trả lại), tồn kho không bao giờ âm
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity,"
+            + " p.reservedQuantity = CASE WHEN p.reservedQuantity > :quantity"
+            + " THEN p.reservedQuantity - :quantity ELSE 0 END"
+            + " WHERE p.productId = :productId AND p.stockQuantity >= :quantity")
+    int commitReservedStock(Integer productId, Integer quantity);
+
+    // Tìm id sản phẩm theo tên trong category (dùng khi import)
+    @Query("SELECT p.productId FROM Product p WHERE p.productName = ?1 AND p.categoryId = ?2 ORDER BY p.productId")
+    List<Integer> findProductIdsByNameAndCategory(String productName, Integer categoryId);
+
+    // Thẻ sản phẩm (projection) - không load description/imageUrls
+    @Query(CARD_SELECT + " WHERE p.isActive = true" + CARD_GROUP_BY + " ORDER BY p.productId")
+    List<ProductCardView> findActiveProductCards();
+
+    // Thẻ sản phẩm của category và toàn bộ category con
+    @Query(CARD_SELECT + " WHERE p.isActive = true AND p.categoryId IN"
+            + " (SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :categoryId)"
+            + CARD_GROUP_BY + " ORDER BY p.productId")
+    List<ProductCardView> findActiveProductCardsInCategoryTree(Integer categoryId);
+
+    // Thẻ sản phẩm theo danh sách id (thứ tự do caller sắp lại)
+    @Query(CARD_SELECT + " WHERE p.isActive = true AND p.productId IN :productIds" + CARD_GROUP_BY)
+    List<ProductCardView> findActiveProductCardsByIds(Collection<Integer> productIds);
+
+    // Sản phẩm liên quan cùng category, bỏ qua sản phẩm hiện tại
+    @Query(CARD_SELECT + " WHERE p.categoryId = :categoryId AND p.isActive = true AND p.productId <> :excludedProductId"
+            + CARD_GROUP_BY + " ORDER BY p.productId")
+    List<ProductCardView> findRelatedProductCards(Integer categoryId, Integer excludedProductId, Pageable pageable);
+
+    // Thuộc tính facet của toàn bộ sản phẩm active
+    @Query(FACET_SELECT + " WHERE p.isActive = true" + FACET_GROUP_BY)
+    List<ProductFacetView> findActiveProductFacets();
+
+    // Thuộc tính facet của một nhóm sản phẩm (cập nhật facet tăng dần)
+    @Query(FACET_SELECT + " WHERE p.isActive = true AND p.productId IN :productIds" + FACET_GROUP_BY)
+    List<ProductFacetView> findActiveProductFacetsByIds(Collection<Integer> productIds);
+
+    // Đọc tuần tự (forward-only) toàn bộ sản phẩm active cho export
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.productId")
+    Stream<Product> streamActiveProducts();
+
+    // Sản phẩm (kể cả inactive) có GREATEST(updated_at của sản phẩm, updated_at của các size) > since.
+    // Viết bằng OR EXISTS vì hàm GREATEST chỉ có từ SQL Server 2022
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.updatedAt > :since"
+            + " OR EXISTS (SELECT ps.priceId FROM ProductSize ps WHERE ps.product = p AND ps.updatedAt > :since)"
+            + " ORDER BY p.productId")
+    Stream<Product> streamProductsChangedSince(LocalDateTime since);
+}
@@ -0,0 +1,19 @@
+package com.swd392.baking.repository;
+
+import com.swd392.baking.model.ProductSalesDaily;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductSalesDailyRepository extends JpaRepository<ProductSalesDaily, ProductSalesDaily.Key> {
+
+    // Id sản phẩm bán chạy nhất từ ngày from (tổng của mọi node đã ghi xuống DB)
+    @Query("SELECT s.productId FROM ProductSalesDaily s WHERE s.saleDate >= :from GROUP BY s.productId"
+            + " ORDER BY SUM(s.quantity) DESC, s.productId")
+    List<Integer> findTopSellingProductIds(LocalDate from, Pageable pageable);
+}
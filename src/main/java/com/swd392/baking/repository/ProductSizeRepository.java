@@ -2,8 +2,11 @@ package com.swd392.baking.repository;
 
 import com.swd392.baking.model.ProductSize;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +16,34 @@ public interface ProductSizeRepository extends JpaRepository<ProductSize, Intege
     // Lấy tất cả sizes của một sản phẩm
     List<ProductSize> findByProduct_ProductId(Integer productId);
 
+    // Lấy sizes của nhiều sản phẩm trong một query
+    List<ProductSize> findByProduct_ProductIdIn(Collection<Integer> productIds);
+
+    // Sizes của toàn bộ sản phẩm active
+    @Query("SELECT ps FROM ProductSize ps WHERE ps.product.isActive = true")
+    List<ProductSize> findActiveProductSizes();
+
+    // Các size có khuyến mãi bắt đầu hoặc kết thúc trong khoảng (from, to]
+    @Query("SELECT ps FROM ProductSize ps JOIN FETCH ps.product"
+            + " WHERE (ps.promotionStart > :from AND ps.promotionStart <= :to)"
+            + " OR (ps.promotionEnd > :from AND ps.promotionEnd <= :to)")
+    List<ProductSize> findPromotionBoundariesBetween(LocalDateTime from, LocalDateTime to);
+
+    // Id sản phẩm có size bắt đầu hoặc kết thúc khuyến mãi trong khoảng (from, to]
+    @Query("SELECT DISTINCT ps.product.productId FROM ProductSize ps"
+            + " WHERE (ps.promotionStart > :from AND ps.promotionStart <= :to)"
+            + " OR (ps.promotionEnd > :from AND ps.promotionEnd <= :to)")
+    List<Integer> findProductIdsWithPromotionBoundariesBetween(LocalDateTime from, LocalDateTime to);
+
+    // Các cặp (productId, size) của sản phẩm active cho facet
+    @Query("SELECT DISTINCT ps.product.productId AS productId, ps.size AS size FROM ProductSize ps"
+            + " WHERE ps.product.isActive = true")
+    List<ProductSizeValueView> findActiveSizeValues();
+
+    @Query("SELECT DISTINCT ps.product.productId AS productId, ps.size AS size FROM ProductSize ps"
+            + " WHERE ps.product.isActive = true AND ps.product.productId IN :productIds")
+    List<ProductSizeValueView> findActiveSizeValuesByProductIds(Collection<Integer> productIds);
+
     // Tìm theo SKU
     Optional<ProductSize> findBySku(String sku);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.swd392.baking.repository;
+
+/**
+ * Projection (productId, size) cho facet theo size
+ */
+public interface ProductSizeValueView {
+
+    Integer getProductId();
+
+    String getSize();
+}
@@ -0,0 +1,34 @@
+package com.swd392.baking.repository;
+
+import com.swd392.baking.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Gia hạn lease đang giữ hoặc lấy lease đã hết hạn; trả về 0 nếu node khác đang giữ
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.lockedUntil = :lockedUntil " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.lockedUntil < :now)")
+    int tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil);
+
+    // Tạo dòng lease lần đầu; node khác tạo cùng lúc thì vi phạm khóa chính
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, locked_until) VALUES (:name, :owner, :lockedUntil)",
+            nativeQuery = true)
+    int insert(String name, String owner, LocalDateTime lockedUntil);
+
+    // Nhả lease khi tắt node để node khác tiếp quản ngay, không phải chờ hết hạn
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(String name, String owner, LocalDateTime now);
+}
@@ -0,0 +1,127 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.CacheInvalidationListener;
+import com.swd392.baking.event.InvalidationTransport;
+import com.swd392.baking.event.OutboxSubscriber;
+import com.swd392.baking.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chuyển thay đổi catalog và giỏ hàng (CartOwner) từ outbox (chỉ node giữ lease relay xử lý, nên mỗi thay đổi được phát một lần)
+ * thành thông điệp invalidation phát tới mọi node, rồi giao cho các CacheInvalidationListener cục bộ. Invalidation là idempotent nên nhận trùng không sao;
+ * version lớn nhất đã áp dụng được báo qua metric để so giữa các node và thấy node nào đang chậm.
+ * <p>
+ * Metric (tag node): baking.cache.invalidation.version, baking.cache.invalidation.sync.age (giây từ lần
+ * đồng bộ cuối), baking.cache.invalidation.received, baking.cache.invalidation.resyncs.
+ * <p>
+ * Chạy sau các OutboxSubscriber khác trong cùng lô, để invalidation chỉ phát khi dữ liệu dẫn xuất đã dựng xong.
+ */
+@Slf4j
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheInvalidationBus implements OutboxSubscriber, InvalidationTransport.Receiver {
+
+    private final InvalidationTransport transport;
+    private final List<CacheInvalidationListener> listeners;
+
+    private final AtomicLong appliedVersion = new AtomicLong();
+    private final AtomicLong lastSyncMillis = new AtomicLong(System.currentTimeMillis());
+    private final Counter received;
+    private final Counter resyncs;
+
+    public CacheInvalidationBus(InvalidationTransport transport,
+                                List<CacheInvalidationListener> listeners,
+                                MeterRegistry meterRegistry,
+                                @Value("${baking.node-id:${HOSTNAME:local}}") String nodeId) {
+        this.transport = transport;
+        this.listeners = listeners;
+        Tags tags = Tags.of("node", nodeId);
+        Gauge.builder("baking.cache.invalidation.version", appliedVersion, AtomicLong::get)
+                .tags(tags)
+                .description("Highest invalidation version applied on this node")
+                .register(meterRegistry);
+        Gauge.builder("baking.cache.invalidation.sync.age", lastSyncMillis,
+                        last -> (System.currentTimeMillis() - last.get()) / 1000.0)
+                .tags(tags)
+                .baseUnit("seconds")
+                .description("Time since this node last synced with the invalidation transport")
+                .register(meterRegistry);
+        this.received = Counter.builder("baking.cache.invalidation.received").tags(tags).register(meterRegistry);
+        this.resyncs = Counter.builder("baking.cache.invalidation.resyncs").tags(tags).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        transport.subscribe(this);
+    }
+
+    public long getAppliedVersion() {
+        return appliedVersion.get();
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.PRODUCT, OutboxService.CATEGORY, OutboxService.CART_OWNER);
+    }
+
+    /**
+     * Relay outbox: phát thay đổi catalog / giỏ hàng; lỗi phát thì outbox giao lại cả lô
+     */
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        transport.publish(events.stream()
+                .map(event -> new CacheInvalidation(0, event.getAggregateType(), event.getAggregateId(),
+                        event.getEntityType(), event.getEntityId(), event.getChangeType()))
+                .toList());
+    }
+
+    /**
+     * Nhận thông điệp từ transport và giao cho cache cục bộ
+     */
+    @Override
+    public void accept(List<CacheInvalidation> invalidations) {
+        lastSyncMillis.set(System.currentTimeMillis());
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        received.increment(invalidations.size());
+        for (CacheInvalidationListener listener : listeners) {
+            List<CacheInvalidation> relevant = invalidations.stream()
+                    .filter(invalidation -> listener.aggregateTypes().contains(invalidation.getAggregateType()))
+                    .toList();
+            if (relevant.isEmpty()) {
+                continue;
+            }
+            try {
+                listener.onInvalidation(relevant);
+            } catch (RuntimeException e) {
+                // Không có lần giao lại cho riêng node này, bỏ toàn bộ cache để vẫn hội tụ
+                log.warn("Cache invalidation failed in {}, invalidating all: {}",
+                        listener.getClass().getSimpleName(), e.getMessage());
+                listener.invalidateAll();
+            }
+        }
+        long maxVersion = invalidations.stream().mapToLong(CacheInvalidation::getVersion).max().orElse(0);
+        appliedVersion.accumulateAndGet(maxVersion, Math::max);
+    }
+
+    @Override
+    public void resync() {
+        resyncs.increment();
+        listeners.forEach(CacheInvalidationListener::invalidateAll);
+    }
+}
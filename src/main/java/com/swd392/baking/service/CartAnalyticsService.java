@@ -0,0 +1,329 @@
+package com.swd392.baking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swd392.baking.event.CartActivityEvent;
+import com.swd392.baking.event.ProductViewedEvent;
+import com.swd392.baking.model.CartAnalyticsReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tổng hợp tăng dần các sự kiện giỏ hàng (mua kèm, phễu xem → thêm → bỏ/hết hạn) trong bộ nhớ.
+ * Không đọc bảng carts / cart_items; số liệu được snapshot định kỳ ra file để sống qua restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CartAnalyticsService {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${baking.analytics.snapshot-path:data/cart-analytics.json}")
+    private Path snapshotPath;
+
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    private final LongAdder cartsCreated = new LongAdder();
+    private final LongAdder cartsCleared = new LongAdder();
+    private final LongAdder cartsAbandoned = new LongAdder();
+    private final LongAdder cartsMerged = new LongAdder();
+    private final LongAdder cartsCheckedOut = new LongAdder();
+
+    private final Map<Integer, ProductCounters> products = new ConcurrentHashMap<>();
+
+    // (productId nhỏ << 32 | productId lớn) -> số giỏ hàng chứa cả hai
+    private final Map<Long, LongAdder> pairCounts = new ConcurrentHashMap<>();
+
+    // cartId -> các sản phẩm đang có trong giỏ, để cộng cặp mới khi thêm sản phẩm
+    private final Map<Integer, Set<Integer>> liveCarts = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener
+    public void onCartActivity(CartActivityEvent event) {
+        if (event.getProductId() == null) {
+            recordCartEvent(event);
+        } else {
+            recordLineEvent(event);
+        }
+    }
+
+    @EventListener
+    public void onProductViewed(ProductViewedEvent event) {
+        counters(event.getProductId()).views.increment();
+    }
+
+    /**
+     * Báo cáo tổng quan: phễu của các sản phẩm được thêm vào giỏ nhiều nhất và các cặp mua kèm phổ biến nhất
+     */
+    public CartAnalyticsReport getReport(int limit) {
+        List<CartAnalyticsReport.ProductFunnel> funnels = products.entrySet().stream()
+                .map(entry -> toFunnel(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(CartAnalyticsReport.ProductFunnel::getAddToCarts).reversed()
+                        .thenComparing(CartAnalyticsReport.ProductFunnel::getViews, Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+
+        List<CartAnalyticsReport.ProductPair> pairs = pairCounts.entrySet().stream()
+                .map(entry -> new CartAnalyticsReport.ProductPair(
+                        (int) (entry.getKey() >>> 32), (int) (long) entry.getKey(), entry.getValue().sum()))
+                .sorted(Comparator.comparing(CartAnalyticsReport.ProductPair::getCarts).reversed())
+                .limit(limit)
+                .toList();
+
+        long created = cartsCreated.sum();
+        return CartAnalyticsReport.builder()
+                .since(since)
+                .cartsCreated(created)
+                .cartsCleared(cartsCleared.sum())
+                .cartsAbandoned(cartsAbandoned.sum())
+                .cartsMerged(cartsMerged.sum())
+                .cartsCheckedOut(cartsCheckedOut.sum())
+                .conversionRate(ratio(cartsCheckedOut.sum(), created))
+                .abandonmentRate(ratio(cartsAbandoned.sum(), created))
+                .products(funnels)
+                .pairs(pairs)
+                .build();
+    }
+
+    /**
+     * Phễu của một sản phẩm và các sản phẩm hay được thêm cùng giỏ với nó
+     */
+    public CartAnalyticsReport getProductReport(Integer productId, int limit) {
+        ProductCounters productCounters = products.getOrDefault(productId, new ProductCounters());
+
+        List<CartAnalyticsReport.ProductPair> pairs = pairCounts.entrySet().stream()
+                .filter(entry -> (int) (entry.getKey() >>> 32) == productId || (int) (long) entry.getKey() == productId)
+                .map(entry -> {
+                    int first = (int) (entry.getKey() >>> 32);
+                    int other = first == productId ? (int) (long) entry.getKey() : first;
+                    return new CartAnalyticsReport.ProductPair(productId, other, entry.getValue().sum());
+                })
+                .sorted(Comparator.comparing(CartAnalyticsReport.ProductPair::getCarts).reversed())
+                .limit(limit)
+                .toList();
+
+        return CartAnalyticsReport.builder()
+                .since(since)
+                .products(List.of(toFunnel(productId, productCounters)))
+                .pairs(pairs)
+                .build();
+    }
+
+    /**
+     * Ghi snapshot ra file (ghi file tạm rồi đổi tên để không bao giờ để lại file dở dang)
+     */
+    @Scheduled(fixedDelayString = "${baking.analytics.snapshot-interval:PT5M}",
+            initialDelayString = "${baking.analytics.snapshot-interval:PT5M}")
+    @PreDestroy
+    public void writeSnapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setSince(since);
+        snapshot.setCarts(new long[]{cartsCreated.sum(), cartsCleared.sum(), cartsAbandoned.sum(), cartsMerged.sum(),
+                cartsCheckedOut.sum()});
+        Map<Integer, long[]> productSnapshot = new HashMap<>();
+        products.forEach((productId, productCounters) -> productSnapshot.put(productId, productCounters.toArray()));
+        snapshot.setProducts(productSnapshot);
+        Map<Long, Long> pairSnapshot = new HashMap<>();
+        pairCounts.forEach((key, count) -> pairSnapshot.put(key, count.sum()));
+        snapshot.setPairs(pairSnapshot);
+        Map<Integer, Set<Integer>> cartSnapshot = new HashMap<>();
+        liveCarts.forEach((cartId, productIds) -> cartSnapshot.put(cartId, new HashSet<>(productIds)));
+        snapshot.setLiveCarts(cartSnapshot);
+
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "cart-analytics", ".tmp");
+            objectMapper.writeValue(temp.toFile(), snapshot);
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Cannot write cart analytics snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotPath.toFile(), Snapshot.class);
+            since = snapshot.getSince();
+            cartsCreated.add(snapshot.getCarts()[0]);
+            cartsCleared.add(snapshot.getCarts()[1]);
+            cartsAbandoned.add(snapshot.getCarts()[2]);
+            cartsMerged.add(snapshot.getCarts()[3]);
+            // Snapshot cũ chưa có bộ đếm checkout
+            if (snapshot.getCarts().length > 4) {
+                cartsCheckedOut.add(snapshot.getCarts()[4]);
+            }
+            snapshot.getProducts().forEach((productId, values) -> counters(productId).add(values));
+            snapshot.getPairs().forEach((key, count) -> pairCounts.computeIfAbsent(key, k -> new LongAdder()).add(count));
+            snapshot.getLiveCarts().forEach((cartId, productIds) -> {
+                Set<Integer> cart = ConcurrentHashMap.newKeySet();
+                cart.addAll(productIds);
+                liveCarts.put(cartId, cart);
+            });
+            log.info("Loaded cart analytics snapshot: {} products, {} pairs", products.size(), pairCounts.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable cart analytics snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void recordCartEvent(CartActivityEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+                cartsCreated.increment();
+                liveCarts.putIfAbsent(event.getCartId(), ConcurrentHashMap.newKeySet());
+            }
+            case CLEARED -> {
+                cartsCleared.increment();
+                liveCarts.remove(event.getCartId());
+            }
+            case EXPIRED -> {
+                cartsAbandoned.increment();
+                liveCarts.remove(event.getCartId());
+            }
+            case MERGED -> {
+                cartsMerged.increment();
+                liveCarts.remove(event.getSourceCartId());
+            }
+            case CHECKED_OUT -> {
+                cartsCheckedOut.increment();
+                liveCarts.remove(event.getCartId());
+            }
+            default -> log.debug("Ignoring cart-level event {}", event.getType());
+        }
+    }
+
+    private void recordLineEvent(CartActivityEvent event) {
+        ProductCounters productCounters = counters(event.getProductId());
+        switch (event.getType()) {
+            case ADDED -> {
+                productCounters.addToCarts.increment();
+                productCounters.addedQuantity.add(event.getQuantity());
+                addToLiveCart(event.getCartId(), event.getProductId());
+            }
+            case QUANTITY_CHANGED -> {
+                if (event.getQuantity() > 0) {
+                    productCounters.addedQuantity.add(event.getQuantity());
+                } else {
+                    productCounters.removedQuantity.add(-event.getQuantity());
+                }
+            }
+            case REMOVED -> {
+                productCounters.removedQuantity.add(-event.getQuantity());
+                Set<Integer> cart = liveCarts.get(event.getCartId());
+                if (cart != null) {
+                    cart.remove(event.getProductId());
+                }
+            }
+            case CLEARED -> productCounters.clearedQuantity.add(-event.getQuantity());
+            case EXPIRED -> productCounters.abandonedQuantity.add(-event.getQuantity());
+            case MERGED -> addToLiveCart(event.getCartId(), event.getProductId());
+            default -> log.debug("Ignoring line event {}", event.getType());
+        }
+    }
+
+    // Sản phẩm mới vào giỏ tạo thành một cặp với mỗi sản phẩm đang có trong giỏ
+    private void addToLiveCart(Integer cartId, Integer productId) {
+        Set<Integer> cart = liveCarts.computeIfAbsent(cartId, id -> ConcurrentHashMap.newKeySet());
+        synchronized (cart) {
+            if (!cart.add(productId)) {
+                return;
+            }
+            for (Integer other : cart) {
+                if (!other.equals(productId)) {
+                    pairCounts.computeIfAbsent(pairKey(productId, other), key -> new LongAdder()).increment();
+                }
+            }
+        }
+    }
+
+    private ProductCounters counters(Integer productId) {
+        return products.computeIfAbsent(productId, id -> new ProductCounters());
+    }
+
+    private static long pairKey(int productId, int otherProductId) {
+        int low = Math.min(productId, otherProductId);
+        int high = Math.max(productId, otherProductId);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    private static CartAnalyticsReport.ProductFunnel toFunnel(Integer productId, ProductCounters counters) {
+        long views = counters.views.sum();
+        long addToCarts = counters.addToCarts.sum();
+        long addedQuantity = counters.addedQuantity.sum();
+        long abandonedQuantity = counters.abandonedQuantity.sum();
+        return new CartAnalyticsReport.ProductFunnel(productId, views, addToCarts, addedQuantity,
+                counters.removedQuantity.sum(), counters.clearedQuantity.sum(), abandonedQuantity,
+                ratio(addToCarts, views), ratio(abandonedQuantity, addedQuantity));
+    }
+
+    private static Double ratio(long numerator, long denominator) {
+        return denominator > 0 ? (double) numerator / denominator : null;
+    }
+
+    private static final class ProductCounters {
+
+        private final LongAdder views = new LongAdder();
+        private final LongAdder addToCarts = new LongAdder();
+        private final LongAdder addedQuantity = new LongAdder();
+        private final LongAdder removedQuantity = new LongAdder();
+        private final LongAdder clearedQuantity = new LongAdder();
+        private final LongAdder abandonedQuantity = new LongAdder();
+
+        long[] toArray() {
+            return new long[]{views.sum(), addToCarts.sum(), addedQuantity.sum(),
+                    removedQuantity.sum(), clearedQuantity.sum(), abandonedQuantity.sum()};
+        }
+
+        void add(long[] values) {
+            views.add(values[0]);
+            addToCarts.add(values[1]);
+            addedQuantity.add(values[2]);
+            removedQuantity.add(values[3]);
+            clearedQuantity.add(values[4]);
+            abandonedQuantity.add(values[5]);
+        }
+    }
+
+    /**
+     * Định dạng file snapshot; bộ đếm lưu dạng mảng cho gọn
+     */
+    @Data
+    @NoArgsConstructor
+    static class Snapshot {
+        private LocalDateTime since;
+        // created, cleared, abandoned, merged, checkedOut
+        private long[] carts;
+        // views, addToCarts, added, removed, cleared, abandoned
+        private Map<Integer, long[]> products;
+        private Map<Long, Long> pairs;
+        private Map<Integer, Set<Integer>> liveCarts;
+    }
+}
@@ -0,0 +1,308 @@
+package com.swd392.baking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swd392.baking.model.CartDTO;
+import com.swd392.baking.model.ProductSize;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đẩy thay đổi giỏ hàng và thay đổi giá khuyến mãi xuống trình duyệt qua Server-Sent Events.
+ * Mỗi kết nối là một request async với servlet non-blocking IO (WriteListener): event được serialize một lần
+ * thành frame SSE, thêm vào hàng đợi riêng của từng kết nối (tối đa baking.cart.events.max-queue frame) và chỉ
+ * được ghi khi socket sẵn sàng, phần còn lại do container gọi onWritePossible ghi tiếp. Không có thao tác ghi
+ * blocking nào, nên client chậm hoặc treo không chặn người phát event hay các client khác.
+ * <p>
+ * Client không đọc kịp (hàng đợi đầy) hoặc socket không nhận thêm dữ liệu quá baking.cart.events.send-timeout
+ * sẽ bị ngắt kết nối; EventSource ở trình duyệt tự kết nối lại.
+ * <p>
+ * Kết nối chỉ nằm trên node đã nhận nó; thay đổi giỏ hàng từ node khác tới qua CacheInvalidationBus
+ * (aggregate CartOwner, xem CartService.onInvalidation).
+ */
+@Slf4j
+@Service
+public class CartEventService {
+
+    private static final long CONNECTION_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+    private static final byte[] CONNECTED = ": connected\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PING = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    // OutboxService.cartOwnerId -> các kết nối đang mở (mỗi tab một kết nối)
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper;
+    private final int maxQueue;
+    private final long sendTimeoutNanos;
+
+    public CartEventService(ObjectMapper objectMapper,
+                            @Value("${baking.cart.events.max-queue:32}") int maxQueue,
+                            @Value("${baking.cart.events.send-timeout:PT10S}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.maxQueue = maxQueue;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+    }
+
+    /**
+     * Mở kết nối SSE cho một giỏ hàng; request chuyển sang async và được giữ tới khi client ngắt hoặc hết hạn
+     */
+    public void subscribe(Integer userId, String sessionId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Nginx không buffer response để event tới trình duyệt ngay
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(CONNECTION_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(OutboxService.cartOwnerId(userId, sessionId), context, response.getOutputStream());
+        context.addListener(subscriber);
+        subscribers.computeIfAbsent(subscriber.key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        // Gửi header ngay để EventSource mở kết nối; container gọi onWritePossible khi có thể ghi
+        subscriber.offer(CONNECTED);
+        subscriber.output.setWriteListener(subscriber);
+    }
+
+    /**
+     * Node này có kết nối SSE nào của chủ giỏ hàng (OutboxService.cartOwnerId) hay không
+     */
+    public boolean hasSubscribers(String ownerId) {
+        return subscribers.containsKey(ownerId);
+    }
+
+    /**
+     * Chủ giỏ hàng đang có kết nối SSE trên node này
+     */
+    public Set<String> subscribedOwners() {
+        return Set.copyOf(subscribers.keySet());
+    }
+
+    /**
+     * Gửi trạng thái giỏ hàng mới tới các tab đang mở của cùng session / user
+     */
+    public void publishCart(Integer userId, String sessionId, CartDTO cart) {
+        String key = OutboxService.cartOwnerId(userId, sessionId);
+        if (subscribers.containsKey(key)) {
+            send(key, frame("cart", cart));
+        }
+    }
+
+    /**
+     * Báo giá mới của một size trong giỏ hàng (khuyến mãi bắt đầu / kết thúc, dòng giỏ hàng đã được cập nhật giá)
+     */
+    public void publishPriceChange(Integer userId, String sessionId, ProductSize size) {
+        String key = OutboxService.cartOwnerId(userId, sessionId);
+        if (subscribers.containsKey(key)) {
+            send(key, frame("price", toPriceChange(size)));
+        }
+    }
+
+    /**
+     * Giữ kết nối sống qua proxy, phát hiện client đã đóng và ngắt các kết nối không nhận thêm dữ liệu
+     */
+    @Scheduled(fixedRateString = "${baking.cart.events.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                subscriber.drop("send timed out");
+            } else {
+                subscriber.offer(PING);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.drop("shutdown")));
+        subscribers.clear();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void send(String key, byte[] frame) {
+        Set<Subscriber> targets = subscribers.get(key);
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(frame);
+        }
+    }
+
+    // Frame SSE dùng chung (chỉ đọc) cho mọi kết nối của key
+    private byte[] frame(String name, Object data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + name + " event", e);
+        }
+        StringBuilder frame = new StringBuilder("event: ").append(name).append('\n');
+        for (String line : json.split("\n", -1)) {
+            frame.append("data: ").append(line).append('\n');
+        }
+        return frame.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private Map<String, Object> toPriceChange(ProductSize size) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("priceId", size.getPriceId());
+        change.put("productId", size.getProduct().getProductId());
+        change.put("productName", size.getProduct().getProductName());
+        change.put("size", size.getSize());
+        change.put("regularPrice", size.getRegularPrice());
+        change.put("effectivePrice", size.getEffectivePrice());
+        change.put("isPromotionActive", size.isPromotionActive());
+        return change;
+    }
+
+    /**
+     * Một kết nối SSE và hàng đợi frame của nó. pump() được gọi từ luồng phát event và từ container
+     * (onWritePossible), đồng bộ trên subscriber vì servlet không cho ghi song song trên cùng output stream.
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+        private final String key;
+        private final AsyncContext context;
+        private final ServletOutputStream output;
+        private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private volatile boolean closed;
+        // Thời điểm socket bắt đầu không nhận thêm dữ liệu (isReady() = false), 0 nếu đang ghi được
+        private volatile long blockedSince;
+        private boolean listening;
+        private boolean unflushed;
+
+        private Subscriber(String key, AsyncContext context, ServletOutputStream output) {
+            this.key = key;
+            this.context = context;
+            this.output = output;
+        }
+
+        private void offer(byte[] frame) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                drop("queue full");
+                return;
+            }
+            queue.add(frame);
+            pump();
+        }
+
+        // Ghi hết những gì socket nhận được ngay; isReady() = false thì container sẽ gọi lại onWritePossible
+        private synchronized void pump() {
+            if (closed || !listening) {
+                return;
+            }
+            try {
+                while (output.isReady()) {
+                    byte[] frame = queue.poll();
+                    if (frame != null) {
+                        queued.decrementAndGet();
+                        output.write(frame);
+                        unflushed = true;
+                    } else if (unflushed) {
+                        unflushed = false;
+                        output.flush();
+                    } else {
+                        blockedSince = 0;
+                        return;
+                    }
+                }
+                if (blockedSince == 0) {
+                    blockedSince = System.nanoTime();
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop("send failed");
+            }
+        }
+
+        private boolean isStalled(long now) {
+            long since = blockedSince;
+            return since != 0 && now - since > sendTimeoutNanos;
+        }
+
+        // complete() không chờ dữ liệu đang treo trong buffer nên không bị chặn bởi client chậm
+        private void drop(String reason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            removeSubscriber(this);
+            queue.clear();
+            log.debug("Dropping SSE client {}: {}", key, reason);
+            try {
+                context.complete();
+            } catch (IllegalStateException e) {
+                // Container đã kết thúc request (client ngắt, timeout)
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                listening = true;
+            }
+            pump();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            drop("write error: " + error.getMessage());
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            closed = true;
+            removeSubscriber(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            drop("timeout");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            drop("connection error");
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.swd392.baking.service;
 
+import com.swd392.baking.config.ReadYourWritesTracker;
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.CacheInvalidationListener;
+import com.swd392.baking.event.CartActivityEvent;
+import com.swd392.baking.event.ProductSoldEvent;
 import com.swd392.baking.model.Cart;
 import com.swd392.baking.model.CartItem;
 import com.swd392.baking.model.Product;
@@ -7,77 +12,109 @@ import com.swd392.baking.model.ProductSize;
 import com.swd392.baking.model.AddToCartRequest;
 import com.swd392.baking.model.CartDTO;
 import com.swd392.baking.model.CartItemDTO;
+import com.swd392.baking.model.CartSummaryDTO;
+import com.swd392.baking.model.Money;
+import com.swd392.baking.model.OutboxEvent;
 import com.swd392.baking.repository.CartRepository;
 import com.swd392.baking.repository.CartItemRepository;
+import com.swd392.baking.repository.CartLineOwnerView;
 import com.swd392.baking.repository.ProductRepository;
 import com.swd392.baking.repository.ProductSizeRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Supplier;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CartService {
+public class CartService implements CacheInvalidationListener {
+
+    private static final int EXPIRY_BATCH_SIZE = 200;
+    private static final int MAX_CONFLICT_ATTEMPTS = 3;
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final ProductSizeRepository productSizeRepository;
+    private final CartSummaryService cartSummaryService;
+    private final CartEventService cartEventService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private final ReadYourWritesTracker readYourWrites;
+    private final EntityManager entityManager;
+
+    // Giỏ hàng guest không hoạt động lâu hơn thời gian này sẽ bị xóa và trả lại hàng đã giữ
+    @Value("${baking.cart.reservation-ttl:PT1H}")
+    private Duration reservationTtl;
+
+    // Tương tự cho giỏ hàng của user đã đăng nhập, giữ lâu hơn vì user thường quay lại sau
+    @Value("${baking.cart.user-reservation-ttl:P1D}")
+    private Duration userReservationTtl;
+
+    private volatile LocalDateTime lastPromotionCheck = LocalDateTime.now();
 
     /**
      * Thêm sản phẩm vào giỏ hàng
      */
-    @Transactional
     public CartDTO addToCart(AddToCartRequest request, Integer userId, String sessionId) {
         // Validate input
         validateAddToCartRequest(request, userId, sessionId);
 
-        // Tìm hoặc tạo mới giỏ hàng
-        Cart cart = findOrCreateCart(userId, sessionId);
-
-        // Lấy thông tin sản phẩm
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + request.getProductId()));
-
-        // Xác định giá sản phẩm dựa trên size
-        BigDecimal price = determinePrice(product, request.getPriceId());
-
-        // Kiểm tra xem sản phẩm đã có trong giỏ hàng chưa (cùng product và size)
-        Optional<CartItem> existingItem = findExistingCartItem(
-                cart.getCartId(),
-                request.getProductId(),
-                request.getSizeSelected(),
-                request.getPriceId()
-        );
-
-        if (existingItem.isPresent()) {
-            // Nếu đã có, tăng số lượng
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + request.getQuantity());
-            cartItemRepository.save(item);
-        } else {
-            // Nếu chưa có, tạo mới cart item
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .price(price)
-                    .sizeSelected(request.getSizeSelected())
-                    .priceId(request.getPriceId())
-                    .build();
-            cartItemRepository.save(newItem);
-        }
+        CartDTO result = executeWithRetry(() -> {
+            // Tìm hoặc tạo mới giỏ hàng
+            Cart cart = findOrCreateCart(userId, sessionId);
 
-        // Cập nhật thời gian của cart
-        cartRepository.save(cart);
+            // Lấy thông tin sản phẩm
+            Product product = productRepository.findById(request.getProductId())
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + request.getProductId()));
 
-        // Trả về cart DTO
-        return getCart(userId, sessionId);
+            // Xác định giá sản phẩm dựa trên size
+            BigDecimal price = determinePrice(product, request.getPriceId());
+
+            // Giữ hàng trước khi thêm vào giỏ, không cho bán vượt tồn kho
+            reserveStock(product, request.getQuantity());
+
+            // Cộng dồn nếu đã có dòng cùng product và size, nếu chưa thì tạo mới
+            addCartLine(cart, product, request.getQuantity(), price,
+                    request.getSizeSelected(), request.getPriceId());
+            cartSummaryService.recordChange(userId, sessionId, request.getQuantity(),
+                    Money.times(Money.of(price), request.getQuantity()));
+            publishActivity(CartActivityEvent.Type.ADDED, cart.getCartId(), product.getProductId(),
+                    request.getQuantity(), null);
+
+            // Cập nhật thời gian của cart
+            touch(cart);
+
+            // Trả về cart DTO
+            return reloadCart(userId, sessionId);
+        });
+
+        // Báo cho các tab khác của cùng session
+        readYourWrites.markWritten();
+        cartEventService.publishCart(userId, sessionId, result);
+        return result;
     }
 
     /**
@@ -88,122 +125,272 @@ public class CartService {
         Optional<Cart> cartOpt = findCart(userId, sessionId);
 
         if (cartOpt.isEmpty()) {
-            return CartDTO.builder()
-                    .items(List.of())
-                    .totalAmount(BigDecimal.ZERO)
-                    .totalItems(0)
-                    .build();
+            return emptyCart();
         }
 
         Cart cart = cartOpt.get();
-        List<CartItemDTO> items = cart.getCartItems().stream()
-                .map(this::convertToCartItemDTO)
-                .collect(Collectors.toList());
-
-        BigDecimal totalAmount = items.stream()
-                .map(CartItemDTO::getSubTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Integer totalItems = items.stream()
-                .mapToInt(CartItemDTO::getQuantity)
-                .sum();
+        List<CartItemDTO> items = new ArrayList<>(cart.getCartItems().size());
+        long totalAmount = Money.ZERO;
+        int totalItems = 0;
+        for (CartItem item : cart.getCartItems()) {
+            items.add(convertToCartItemDTO(item));
+            totalAmount = Money.plus(totalAmount, item.getSubTotalMinor());
+            totalItems += item.getQuantity();
+        }
 
         return CartDTO.builder()
                 .cartId(cart.getCartId())
                 .userId(cart.getUserId())
                 .sessionId(cart.getSessionId())
                 .items(items)
-                .totalAmount(totalAmount)
+                .totalAmount(Money.toBigDecimal(totalAmount))
                 .totalItems(totalItems)
                 .build();
     }
 
+    /**
+     * Lấy tóm tắt giỏ hàng (số lượng, tổng tiền) cho header
+     */
+    public CartSummaryDTO getCartSummary(Integer userId, String sessionId) {
+        return cartSummaryService.getSummary(userId, sessionId);
+    }
+
     /**
      * Cập nhật số lượng sản phẩm trong giỏ hàng
      */
-    @Transactional
     public CartDTO updateCartItemQuantity(Integer cartItemId, Integer quantity, Integer userId, String sessionId) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-
-        // Verify ownership
-        verifyCartOwnership(cartItem.getCart(), userId, sessionId);
+        CartDTO result = executeWithRetry(() -> {
+            CartItem cartItem = cartItemRepository.findById(cartItemId)
+                    .orElseThrow(() -> new RuntimeException("Cart item not found"));
+
+            // Verify ownership
+            verifyCartOwnership(cartItem.getCart(), userId, sessionId);
+
+            int newQuantity = Math.max(quantity, 0);
+            int delta = newQuantity - cartItem.getQuantity();
+            if (newQuantity == 0) {
+                releaseStock(cartItem.getProduct(), cartItem.getQuantity());
+                cartItemRepository.delete(cartItem);
+            } else {
+                if (delta > 0) {
+                    reserveStock(cartItem.getProduct(), delta);
+                } else if (delta < 0) {
+                    releaseStock(cartItem.getProduct(), -delta);
+                }
+                cartItem.setQuantity(newQuantity);
+                cartItemRepository.save(cartItem);
+            }
+            cartSummaryService.recordChange(userId, sessionId, delta,
+                    Money.times(Money.of(cartItem.getPrice()), delta));
+            if (delta != 0) {
+                publishActivity(newQuantity == 0 ? CartActivityEvent.Type.REMOVED : CartActivityEvent.Type.QUANTITY_CHANGED,
+                        cartItem.getCart().getCartId(), cartItem.getProduct().getProductId(), delta, null);
+            }
+            touch(cartItem.getCart());
 
-        if (quantity <= 0) {
-            cartItemRepository.delete(cartItem);
-        } else {
-            cartItem.setQuantity(quantity);
-            cartItemRepository.save(cartItem);
-        }
+            return reloadCart(userId, sessionId);
+        });
 
-        return getCart(userId, sessionId);
+        readYourWrites.markWritten();
+        cartEventService.publishCart(userId, sessionId, result);
+        return result;
     }
 
     /**
      * Xóa sản phẩm khỏi giỏ hàng
      */
-    @Transactional
     public CartDTO removeCartItem(Integer cartItemId, Integer userId, String sessionId) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        CartDTO result = executeWithRetry(() -> {
+            CartItem cartItem = cartItemRepository.findById(cartItemId)
+                    .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        // Verify ownership
-        verifyCartOwnership(cartItem.getCart(), userId, sessionId);
+            // Verify ownership
+            verifyCartOwnership(cartItem.getCart(), userId, sessionId);
 
-        cartItemRepository.delete(cartItem);
+            releaseStock(cartItem.getProduct(), cartItem.getQuantity());
+            cartItemRepository.delete(cartItem);
+            touch(cartItem.getCart());
+            cartSummaryService.recordChange(userId, sessionId, -cartItem.getQuantity(),
+                    -cartItem.getSubTotalMinor());
+            publishActivity(CartActivityEvent.Type.REMOVED, cartItem.getCart().getCartId(),
+                    cartItem.getProduct().getProductId(), -cartItem.getQuantity(), null);
 
-        return getCart(userId, sessionId);
+            return reloadCart(userId, sessionId);
+        });
+
+        readYourWrites.markWritten();
+        cartEventService.publishCart(userId, sessionId, result);
+        return result;
     }
 
     /**
      * Xóa toàn bộ giỏ hàng
      */
-    @Transactional
     public void clearCart(Integer userId, String sessionId) {
-        Optional<Cart> cartOpt = findCart(userId, sessionId);
-        cartOpt.ifPresent(cart -> {
+        executeWithRetry(() -> {
+            Optional<Cart> cartOpt = findCart(userId, sessionId);
+            cartOpt.ifPresent(cart -> deleteCartAndReleaseStock(cart, CartActivityEvent.Type.CLEARED));
+            return null;
+        });
+
+        readYourWrites.markWritten();
+        cartEventService.publishCart(userId, sessionId, emptyCart());
+    }
+
+    /**
+     * Checkout: hàng đã giữ chuyển thành hàng đã bán, phát ProductSoldEvent cho từng dòng rồi xóa giỏ hàng.
+     * Trừ kho vĩnh viễn nên chỉ gọi từ luồng đặt hàng phía server sau khi đơn hàng đã được ghi nhận,
+     * không mở trực tiếp qua HTTP.
+     */
+    public CartDTO checkout(Integer userId, String sessionId) {
+        CartDTO result = executeWithRetry(() -> {
+            Cart cart = findCart(userId, sessionId)
+                    .filter(c -> !c.getCartItems().isEmpty())
+                    .orElseThrow(() -> new RuntimeException("Cart is empty"));
+            CartDTO checkedOut = getCart(userId, sessionId);
+
+            LocalDateTime soldAt = LocalDateTime.now();
+            for (CartItem item : cart.getCartItems()) {
+                if (productRepository.commitReservedStock(item.getProduct().getProductId(), item.getQuantity()) == 0) {
+                    throw new RuntimeException("Not enough stock for product: " + item.getProduct().getProductName());
+                }
+                recordProductChange(item.getProduct().getProductId());
+                eventPublisher.publishEvent(
+                        new ProductSoldEvent(item.getProduct().getProductId(), item.getQuantity(), soldAt));
+            }
+            publishActivity(CartActivityEvent.Type.CHECKED_OUT, cart.getCartId(), null, 0, null);
+
             cartItemRepository.deleteByCartCartId(cart.getCartId());
             cartRepository.delete(cart);
+            recordOwnerChange(cart, OutboxEvent.ChangeType.DELETED);
+            cartSummaryService.evict(userId, sessionId);
+            return checkedOut;
         });
+
+        readYourWrites.markWritten();
+        cartEventService.publishCart(userId, sessionId, emptyCart());
+        return result;
     }
 
     /**
-     * Merge giỏ hàng của guest vào giỏ hàng của user khi đăng nhập
+     * Xóa giỏ hàng (guest và user) hết hạn và trả lại hàng đã giữ
      */
+    @Scheduled(fixedDelayString = "${baking.cart.expiry-check-interval:PT5M}")
     @Transactional
-    public void mergeGuestCartToUser(String sessionId, Integer userId) {
-        Optional<Cart> guestCartOpt = cartRepository.findBySessionIdWithItems(sessionId);
-
-        if (guestCartOpt.isEmpty()) {
-            return; // Không có giỏ hàng guest
+    public void expireIdleCarts() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> cartIds = cartRepository.findIdleCartIds(now.minus(reservationTtl), now.minus(userReservationTtl),
+                PageRequest.of(0, EXPIRY_BATCH_SIZE));
+        if (cartIds.isEmpty()) {
+            return;
         }
+        cartRepository.findAllById(cartIds).forEach(cart -> deleteCartAndReleaseStock(cart, CartActivityEvent.Type.EXPIRED));
+        log.info("Expired {} idle carts", cartIds.size());
+    }
 
-        Cart guestCart = guestCartOpt.get();
-        Cart userCart = findOrCreateCart(userId, null);
-
-        // Merge các cart items
-        for (CartItem guestItem : guestCart.getCartItems()) {
-            Optional<CartItem> existingItem = findExistingCartItem(
-                    userCart.getCartId(),
-                    guestItem.getProduct().getProductId(),
-                    guestItem.getSizeSelected(),
-                    guestItem.getPriceId()
-            );
-
-            if (existingItem.isPresent()) {
-                // Cộng dồn số lượng
-                CartItem item = existingItem.get();
-                item.setQuantity(item.getQuantity() + guestItem.getQuantity());
-                cartItemRepository.save(item);
-            } else {
-                // Chuyển item sang cart của user
-                guestItem.setCart(userCart);
-                cartItemRepository.save(guestItem);
+    /**
+     * Khuyến mãi vừa bắt đầu / kết thúc: đổi giá các dòng giỏ hàng đang dùng size đó sang giá hiệu lực mới
+     * (giỏ hàng và checkout dùng giá lưu trên dòng), rồi báo giá mới cho các tab đang mở.
+     * Mọi node đều chạy: UPDATE chỉ đổi dòng còn giá cũ, còn event giá được gửi cho kết nối SSE trên từng node.
+     */
+    @Scheduled(fixedDelayString = "${baking.cart.events.promotion-check-interval:PT1M}")
+    public void repriceForPromotionChanges() {
+        LocalDateTime from = lastPromotionCheck;
+        LocalDateTime to = LocalDateTime.now();
+        lastPromotionCheck = to;
+
+        Map<Integer, ProductSize> changed = new HashMap<>();
+        List<CartLineOwnerView> owners = transactionTemplate.execute(status -> {
+            productSizeRepository.findPromotionBoundariesBetween(from, to)
+                    .forEach(size -> changed.put(size.getPriceId(), size));
+            if (changed.isEmpty()) {
+                return List.of();
             }
+            List<CartLineOwnerView> lines = cartItemRepository.findCartOwnersByPriceIds(changed.keySet());
+            Set<Integer> repricedCartIds = new HashSet<>();
+            Set<String> repricedOwners = new HashSet<>();
+            for (ProductSize size : changed.values()) {
+                if (cartItemRepository.repriceLines(size.getPriceId(), size.getEffectivePrice()) > 0) {
+                    lines.stream()
+                            .filter(line -> size.getPriceId().equals(line.getPriceId()))
+                            .forEach(line -> {
+                                repricedCartIds.add(line.getCartId());
+                                repricedOwners.add(OutboxService.cartOwnerId(line.getUserId(), line.getSessionId()));
+                            });
+                }
+            }
+            outboxService.recordAll(OutboxService.CART, repricedCartIds, OutboxService.CART_ITEM,
+                    OutboxEvent.ChangeType.UPDATED);
+            outboxService.recordAll(OutboxService.CART_OWNER, repricedOwners, OutboxService.CART_ITEM,
+                    OutboxEvent.ChangeType.UPDATED);
+            return lines;
+        });
+
+        for (CartLineOwnerView owner : owners) {
+            cartSummaryService.evict(owner.getUserId(), owner.getSessionId());
+            cartEventService.publishPriceChange(owner.getUserId(), owner.getSessionId(),
+                    changed.get(owner.getPriceId()));
+        }
+        if (!owners.isEmpty()) {
+            log.info("Repriced cart lines for {} promotion changes", changed.size());
         }
+    }
 
-        // Xóa giỏ hàng guest
-        cartRepository.delete(guestCart);
+    /**
+     * Merge giỏ hàng của guest vào giỏ hàng của user khi đăng nhập
+     */
+    public void mergeGuestCartToUser(String sessionId, Integer userId) {
+        executeWithRetry(() -> {
+            Optional<Cart> guestCartOpt = cartRepository.findBySessionIdWithItems(sessionId);
+
+            if (guestCartOpt.isEmpty()) {
+                return null; // Không có giỏ hàng guest
+            }
+
+            Cart guestCart = guestCartOpt.get();
+            Cart userCart = findOrCreateCart(userId, null);
+
+            // Merge các cart items (số lượng đã giữ hàng không đổi, chỉ chuyển giỏ)
+            for (CartItem guestItem : guestCart.getCartItems()) {
+                addCartLine(userCart, guestItem.getProduct(), guestItem.getQuantity(), guestItem.getPrice(),
+                        guestItem.getSizeSelected(), guestItem.getPriceId());
+                publishActivity(CartActivityEvent.Type.MERGED, userCart.getCartId(),
+                        guestItem.getProduct().getProductId(), guestItem.getQuantity(), guestCart.getCartId());
+            }
+            publishActivity(CartActivityEvent.Type.MERGED, userCart.getCartId(), null, 0, guestCart.getCartId());
+            touch(userCart);
+
+            // Xóa giỏ hàng guest (cascade xóa các item cũ)
+            cartRepository.delete(guestCart);
+            recordOwnerChange(guestCart, OutboxEvent.ChangeType.DELETED);
+            cartSummaryService.evict(null, sessionId);
+            cartSummaryService.evict(userId, null);
+            return null;
+        });
+        readYourWrites.markWritten();
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.CART_OWNER);
+    }
+
+    /**
+     * Giỏ hàng đổi trên node bất kỳ: đẩy trạng thái mới cho các tab đang mở trên node này. Node vừa ghi đã đẩy
+     * ngay sau commit nên tab ở đó nhận thêm một bản giống hệt, không sao vì event là toàn bộ giỏ hàng.
+     */
+    @Override
+    public void onInvalidation(List<CacheInvalidation> invalidations) {
+        invalidations.stream()
+                .map(CacheInvalidation::getAggregateId)
+                .distinct()
+                .filter(cartEventService::hasSubscribers)
+                .forEach(this::pushCart);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cartEventService.subscribedOwners().forEach(this::pushCart);
     }
 
     // ==================== Private Helper Methods ====================
@@ -225,13 +412,16 @@ public class CartService {
             return cartOpt.get();
         }
 
-        // Tạo mới cart
+        // Tạo mới cart. Hai request đầu tiên chạy song song thì request thua bị unique key uk_carts_owner chặn,
+        // executeWithRetry chạy lại và lần này tìm thấy giỏ vừa được tạo
         Cart newCart = Cart.builder()
                 .userId(userId)
                 .sessionId(sessionId)
                 .build();
 
-        return cartRepository.save(newCart);
+        Cart savedCart = cartRepository.save(newCart);
+        publishActivity(CartActivityEvent.Type.CREATED, savedCart.getCartId(), null, 0, null);
+        return savedCart;
     }
 
     private Optional<Cart> findCart(Integer userId, String sessionId) {
@@ -243,6 +433,114 @@ public class CartService {
         return Optional.empty();
     }
 
+    /**
+     * Chạy thao tác trong transaction mới, tự retry khi bị xung đột version / trùng dòng do request song song
+     */
+    private <T> T executeWithRetry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_CONFLICT_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Cart update conflict, retrying (attempt {}): {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    private void addCartLine(Cart cart, Product product, int quantity, BigDecimal price,
+                             String sizeSelected, Integer priceId) {
+        int updated = cartItemRepository.incrementQuantity(
+                cart.getCartId(), product.getProductId(), sizeSelected, priceId, quantity);
+        if (updated > 0) {
+            outboxService.record(OutboxService.CART, cart.getCartId(), OutboxService.CART_ITEM, null,
+                    OutboxEvent.ChangeType.UPDATED);
+            return;
+        }
+        // Unique key (cart, product, size, price) chặn trường hợp hai request cùng insert
+        CartItem newItem = CartItem.builder()
+                .cart(cart)
+                .product(product)
+                .quantity(quantity)
+                .price(price)
+                .sizeSelected(sizeSelected)
+                .priceId(priceId)
+                .build();
+        cartItemRepository.saveAndFlush(newItem);
+    }
+
+    // Bulk update không cập nhật persistence context, nên flush + clear trước khi đọc lại giỏ hàng
+    private CartDTO reloadCart(Integer userId, String sessionId) {
+        entityManager.flush();
+        entityManager.clear();
+        return getCart(userId, sessionId);
+    }
+
+    private void reserveStock(Product product, int quantity) {
+        int updated = productRepository.reserveStock(product.getProductId(), quantity);
+        if (updated == 0) {
+            throw new RuntimeException("Not enough stock for product: " + product.getProductName());
+        }
+        recordProductChange(product.getProductId());
+    }
+
+    private void releaseStock(Product product, int quantity) {
+        productRepository.releaseStock(product.getProductId(), quantity);
+        recordProductChange(product.getProductId());
+    }
+
+    // Bulk update không qua entity listener nên phải ghi outbox tường minh
+    private void recordProductChange(Integer productId) {
+        outboxService.record(OutboxService.PRODUCT, productId, OutboxService.PRODUCT, productId,
+                OutboxEvent.ChangeType.UPDATED);
+    }
+
+    private void deleteCartAndReleaseStock(Cart cart, CartActivityEvent.Type reason) {
+        for (CartItem item : cart.getCartItems()) {
+            releaseStock(item.getProduct(), item.getQuantity());
+            publishActivity(reason, cart.getCartId(), item.getProduct().getProductId(), -item.getQuantity(), null);
+        }
+        publishActivity(reason, cart.getCartId(), null, 0, null);
+        cartItemRepository.deleteByCartCartId(cart.getCartId());
+        cartRepository.delete(cart);
+        recordOwnerChange(cart, OutboxEvent.ChangeType.DELETED);
+        cartSummaryService.evict(cart.getUserId(), cart.getSessionId());
+    }
+
+    // Listener analytics chỉ nhận sự kiện sau khi transaction commit (lần retry thất bại bị bỏ qua)
+    private void publishActivity(CartActivityEvent.Type type, Integer cartId, Integer productId,
+                                 int quantity, Integer sourceCartId) {
+        eventPublisher.publishEvent(new CartActivityEvent(type, cartId, productId, quantity, sourceCartId));
+    }
+
+    // @PreUpdate chỉ chạy khi cart bị thay đổi, nên phải tự cập nhật thời gian khi item thay đổi.
+    // Dùng UPDATE trực tiếp để các request thêm hàng song song không xung đột version của cart.
+    private void touch(Cart cart) {
+        cartRepository.touch(cart.getCartId());
+        outboxService.record(OutboxService.CART, cart.getCartId(), OutboxService.CART, cart.getCartId(),
+                OutboxEvent.ChangeType.UPDATED);
+        recordOwnerChange(cart, OutboxEvent.ChangeType.UPDATED);
+    }
+
+    // Mọi node bỏ tóm tắt và đẩy lại giỏ hàng cho các tab của chủ giỏ hàng (qua CacheInvalidationBus)
+    private void recordOwnerChange(Cart cart, OutboxEvent.ChangeType changeType) {
+        String ownerId = OutboxService.cartOwnerId(cart.getUserId(), cart.getSessionId());
+        outboxService.record(OutboxService.CART_OWNER, ownerId, OutboxService.CART, cart.getCartId(), changeType);
+    }
+
+    // Đọc primary (transaction ghi) để không đẩy bản cũ từ replica đang trễ
+    private void pushCart(String ownerId) {
+        Integer userId = ownerId.startsWith("u:") ? Integer.valueOf(ownerId.substring(2)) : null;
+        String sessionId = userId == null ? ownerId.substring(2) : null;
+        try {
+            CartDTO cart = transactionTemplate.execute(status -> getCart(userId, sessionId));
+            cartEventService.publishCart(userId, sessionId, cart);
+        } catch (RuntimeException e) {
+            log.warn("Cannot push cart {} to subscribers: {}", ownerId, e.getMessage());
+        }
+    }
+
     private BigDecimal determinePrice(Product product, Integer priceId) {
         if (priceId != null) {
             // Nếu có priceId, lấy giá từ ProductSize
@@ -260,12 +558,6 @@ public class CartService {
         throw new RuntimeException("Price information not provided");
     }
 
-    private Optional<CartItem> findExistingCartItem(Integer cartId, Integer productId,
-                                                    String sizeSelected, Integer priceId) {
-        return cartItemRepository.findByCartCartIdAndProductProductIdAndSizeSelectedAndPriceId(
-                cartId, productId, sizeSelected, priceId);
-    }
-
     private void verifyCartOwnership(Cart cart, Integer userId, String sessionId) {
         boolean isOwner = (userId != null && userId.equals(cart.getUserId())) ||
                 (sessionId != null && sessionId.equals(cart.getSessionId()));
@@ -275,6 +567,14 @@ public class CartService {
         }
     }
 
+    private CartDTO emptyCart() {
+        return CartDTO.builder()
+                .items(List.of())
+                .totalAmount(BigDecimal.ZERO)
+                .totalItems(0)
+                .build();
+    }
+
     private CartItemDTO convertToCartItemDTO(CartItem item) {
         return CartItemDTO.builder()
                 .cartItemId(item.getCartItemId())
@@ -0,0 +1,129 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.CacheInvalidationListener;
+import com.swd392.baking.model.CartSummaryDTO;
+import com.swd392.baking.model.Money;
+import com.swd392.baking.repository.CartItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bộ đếm tóm tắt giỏ hàng (số lượng + tổng tiền) giữ trong bộ nhớ theo chủ giỏ hàng (OutboxService.cartOwnerId).
+ * Mỗi thao tác trên giỏ hàng cộng/trừ delta sau khi transaction commit, nên badge trên header
+ * đọc được trong O(1) mà không cần join. Khi chưa có trong bộ nhớ thì tính lại bằng một câu aggregate.
+ * Giỏ hàng đổi trên node khác thì tóm tắt trên node này bị bỏ qua CacheInvalidationBus (aggregate CartOwner).
+ */
+@Service
+@RequiredArgsConstructor
+public class CartSummaryService implements CacheInvalidationListener {
+
+    private final CartItemRepository cartItemRepository;
+
+    private final ConcurrentMap<String, Entry> summaries = new ConcurrentHashMap<>();
+
+    // Tự tính lại sau khoảng thời gian này để chặn sai lệch do race giữa load và delta
+    @Value("${baking.cart.summary-max-age:PT5M}")
+    private Duration maxAge;
+
+    /**
+     * Lấy tóm tắt giỏ hàng
+     */
+    public CartSummaryDTO getSummary(Integer userId, String sessionId) {
+        String key = OutboxService.cartOwnerId(userId, sessionId);
+        long now = System.nanoTime();
+        Entry entry = summaries.get(key);
+        if (entry == null || now - entry.loadedAt > maxAge.toNanos()) {
+            CartSummaryDTO loaded = userId != null
+                    ? cartItemRepository.summarizeByUserId(userId)
+                    : cartItemRepository.summarizeBySessionId(sessionId);
+            entry = new Entry(loaded.getTotalItems(), Money.of(loaded.getTotalAmount()), now);
+            summaries.put(key, entry);
+        }
+        return CartSummaryDTO.builder()
+                .totalItems(entry.totalItems)
+                .totalAmount(Money.toBigDecimal(entry.totalAmount))
+                .build();
+    }
+
+    /**
+     * Ghi nhận thay đổi số lượng / tiền (đơn vị nhỏ nhất của Money) của giỏ hàng, áp dụng sau khi transaction commit
+     */
+    public void recordChange(Integer userId, String sessionId, int quantityDelta, long amountDelta) {
+        String key = OutboxService.cartOwnerId(userId, sessionId);
+        afterCommit(() -> summaries.computeIfPresent(key, (k, entry) -> new Entry(
+                entry.totalItems + quantityDelta, Money.plus(entry.totalAmount, amountDelta), entry.loadedAt)));
+    }
+
+    /**
+     * Bỏ tóm tắt (giỏ hàng bị xóa / merge), lần đọc sau sẽ tính lại
+     */
+    public void evict(Integer userId, String sessionId) {
+        String key = OutboxService.cartOwnerId(userId, sessionId);
+        afterCommit(() -> summaries.remove(key));
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.CART_OWNER);
+    }
+
+    /**
+     * Giỏ hàng đổi ở node bất kỳ (kể cả node này, sau delta cục bộ): lần đọc sau tính lại từ database
+     */
+    @Override
+    public void onInvalidation(List<CacheInvalidation> invalidations) {
+        invalidations.forEach(invalidation -> summaries.remove(invalidation.getAggregateId()));
+    }
+
+    @Override
+    public void invalidateAll() {
+        summaries.clear();
+    }
+
+    /**
+     * Dọn các tóm tắt đã cũ để bộ nhớ chỉ tỉ lệ với số khách đang hoạt động
+     */
+    @Scheduled(fixedDelayString = "${baking.cart.summary-max-age:PT5M}")
+    public void evictStale() {
+        long now = System.nanoTime();
+        summaries.values().removeIf(entry -> now - entry.loadedAt > maxAge.toNanos());
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class Entry {
+        private final int totalItems;
+        private final long totalAmount;
+        private final long loadedAt;
+
+        private Entry(int totalItems, long totalAmount, long loadedAt) {
+            this.totalItems = totalItems;
+            this.totalAmount = totalAmount;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
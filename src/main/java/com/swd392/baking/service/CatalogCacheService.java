@@ -0,0 +1,299 @@
+package com.swd392.baking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.CacheInvalidationListener;
+import com.swd392.baking.event.ProductViewedEvent;
+import com.swd392.baking.model.CategoryDTO;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.model.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lớp cache đứng trước ProductService / CategoryService cho các lượt đọc nóng (chi tiết sản phẩm,
+ * featured, top xem nhiều, cây category). Nằm ngoài transaction nên request đang chờ một lần load
+ * chung không giữ connection DB. Thay đổi catalog (qua CacheInvalidationBus, trên mọi node) chỉ đánh dấu
+ * hết hạn (stale-while-revalidate).
+ * <p>
+ * Sản phẩm active được giữ trong một snapshot immutable: mỗi sản phẩm có một ProductDTO dùng chung cho mọi
+ * request (chi tiết, featured, top xem nhiều, danh sách) và bản JSON đã serialize sẵn, nên danh sách chỉ là
+ * ghép các đoạn byte. Thay đổi sản phẩm chỉ load lại các sản phẩm đó rồi dựng snapshot mới; hết ttl thì load lại
+ * toàn bộ để nhận các cập nhật không đi qua outbox (lượt xem, tồn kho cập nhật bằng câu UPDATE trực tiếp),
+ * kể cả khi vẫn có sản phẩm thay đổi liên tục. Khuyến mãi bắt đầu/kết thúc làm đổi giá hiệu lực mà không có
+ * thay đổi dữ liệu, nên được kiểm tra định kỳ (baking.catalog.cache.promotion-check-interval) để đánh dấu các
+ * sản phẩm đó hết hạn.
+ * <p>
+ * Sản phẩm không có trong snapshot (vừa tạo mà invalidation chưa tới, hoặc id không tồn tại) được tra qua một
+ * cache riêng với ttl ngắn (baking.catalog.cache.miss-ttl): nhiều request cùng id chỉ đọc DB một lần. Cache này
+ * được xóa mỗi khi dựng snapshot mới nên không phình theo số id lạ bị hỏi.
+ */
+@Service
+public class CatalogCacheService implements CacheInvalidationListener {
+
+    private static final String ALL = "all";
+    private static final int TOP_VIEWED_LIMIT = 10;
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1_000;
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ThreadPoolExecutor refresher = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+            0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE), new RefreshThreadFactory());
+
+    private final SingleFlightCache<String, CatalogSnapshot> catalog;
+    private final SingleFlightCache<Integer, List<Integer>> categoryProductIds;
+    private final SingleFlightCache<String, List<CategoryDTO>> categoryTree;
+    private final SingleFlightCache<Integer, Optional<ProductDTO>> snapshotMisses;
+
+    // Sản phẩm thay đổi từ lần dựng snapshot trước; fullReload khi phải dựng lại từ đầu (resync)
+    private final Set<Integer> dirtyProductIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fullReload = new AtomicBoolean(true);
+    private volatile CatalogSnapshot current;
+
+    // Lần dựng toàn bộ gần nhất; quá ttl thì lần load kế tiếp dựng lại toàn bộ dù có sản phẩm thay đổi hay không
+    private final long fullReloadNanos;
+    private volatile long lastFullLoadNanos;
+    private volatile LocalDateTime lastPromotionCheck = LocalDateTime.now();
+
+    public CatalogCacheService(ProductService productService,
+                               CategoryService categoryService,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${baking.catalog.cache.ttl:PT1M}") Duration ttl,
+                               @Value("${baking.catalog.cache.stale-ttl:PT10M}") Duration staleTtl,
+                               @Value("${baking.catalog.cache.early-refresh-beta:1.0}") double beta,
+                               @Value("${baking.catalog.cache.miss-ttl:PT5S}") Duration missTtl) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.fullReloadNanos = ttl.toNanos();
+        this.catalog = new SingleFlightCache<>("catalog", key -> loadCatalog(),
+                ttl, staleTtl, beta, refresher);
+        this.categoryProductIds = new SingleFlightCache<>("category-products",
+                productService::getActiveProductIdsByCategory, ttl, staleTtl, beta, refresher);
+        this.categoryTree = new SingleFlightCache<>("category-tree", key -> categoryService.getCategoryTree(),
+                ttl, staleTtl, beta, refresher);
+        // Không trả bản cũ và không làm mới sớm: hết missTtl thì request kế tiếp đọc lại
+        this.snapshotMisses = new SingleFlightCache<>("snapshot-misses", productService::findActiveProductById,
+                missTtl, Duration.ZERO, 0, refresher);
+    }
+
+    /**
+     * Lấy sản phẩm theo ID; lượt xem vẫn được đếm cho mọi request kể cả khi trả từ cache
+     */
+    public ProductDTO getProductById(Integer productId) {
+        CatalogEntry entry = catalog.get(ALL).products().get(productId);
+        ProductDTO product = entry != null ? entry.product() : snapshotMisses.get(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        eventPublisher.publishEvent(new ProductViewedEvent(productId));
+        return product;
+    }
+
+    public List<ProductDTO> getFeaturedProducts() {
+        return catalog.get(ALL).featured();
+    }
+
+    public List<ProductDTO> getTop10MostViewed() {
+        return catalog.get(ALL).topViewed();
+    }
+
+    /**
+     * JSON đã serialize của từng sản phẩm active, theo productId
+     */
+    public List<byte[]> getActiveProductsJson() {
+        return catalog.get(ALL).json();
+    }
+
+    /**
+     * JSON đã serialize của từng sản phẩm active thuộc category và các category con, theo productId
+     */
+    public List<byte[]> getProductsJsonByCategory(Integer categoryId) {
+        Map<Integer, CatalogEntry> products = catalog.get(ALL).products();
+        List<Integer> productIds = categoryProductIds.get(categoryId);
+        List<byte[]> json = new ArrayList<>(productIds.size());
+        for (Integer productId : productIds) {
+            CatalogEntry entry = products.get(productId);
+            if (entry != null) {
+                json.add(entry.json());
+            }
+        }
+        return json;
+    }
+
+    public List<CategoryDTO> getCategoryTree() {
+        return categoryTree.get(ALL);
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.PRODUCT, OutboxService.CATEGORY);
+    }
+
+    @Override
+    public void onInvalidation(List<CacheInvalidation> invalidations) {
+        boolean productChanged = false;
+        boolean productDeleted = false;
+        for (CacheInvalidation invalidation : invalidations) {
+            if (OutboxService.CATEGORY.equals(invalidation.getAggregateType())) {
+                categoryTree.invalidateAll();
+                categoryProductIds.invalidateAll();
+                continue;
+            }
+            productChanged = true;
+            Integer productId = Integer.valueOf(invalidation.getAggregateId());
+            dirtyProductIds.add(productId);
+            snapshotMisses.evict(productId);
+            productDeleted |= invalidation.getChangeType() == OutboxEvent.ChangeType.DELETED
+                    && OutboxService.PRODUCT.equals(invalidation.getEntityType());
+        }
+        if (productDeleted) {
+            // Sản phẩm bị xóa thì không trả bản cũ nữa: request kế tiếp chờ dựng lại (chỉ các sản phẩm đổi)
+            catalog.evict(ALL);
+        } else if (productChanged) {
+            catalog.invalidateAll();
+        }
+        if (productChanged) {
+            categoryProductIds.invalidateAll();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        fullReload.set(true);
+        catalog.invalidateAll();
+        categoryProductIds.invalidateAll();
+        categoryTree.invalidateAll();
+        snapshotMisses.evictAll();
+    }
+
+    /**
+     * Đánh dấu hết hạn các sản phẩm vừa bắt đầu hoặc kết thúc khuyến mãi
+     */
+    @Scheduled(fixedDelayString = "${baking.catalog.cache.promotion-check-interval:PT15S}")
+    public void invalidatePromotionChanges() {
+        LocalDateTime from = lastPromotionCheck;
+        LocalDateTime to = LocalDateTime.now();
+        List<Integer> productIds = productService.getProductIdsWithPromotionChangeBetween(from, to);
+        lastPromotionCheck = to;
+        if (!productIds.isEmpty()) {
+            dirtyProductIds.addAll(productIds);
+            catalog.invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    // Chỉ chạy một lần tại một thời điểm (single-flight trên key ALL)
+    private CatalogSnapshot loadCatalog() {
+        long start = System.nanoTime();
+        boolean full = fullReload.getAndSet(false) || start - lastFullLoadNanos >= fullReloadNanos;
+        List<Integer> changed = new ArrayList<>();
+        for (Integer productId : dirtyProductIds) {
+            dirtyProductIds.remove(productId);
+            changed.add(productId);
+        }
+        CatalogSnapshot previous = current;
+        try {
+            TreeMap<Integer, CatalogEntry> products = new TreeMap<>();
+            if (full || previous == null || changed.isEmpty()) {
+                productService.loadActiveProducts().forEach(product -> products.put(product.getProductId(),
+                        toEntry(product)));
+                lastFullLoadNanos = start;
+            } else {
+                products.putAll(previous.products());
+                changed.forEach(products::remove);
+                productService.loadActiveProducts(changed).forEach(product -> products.put(product.getProductId(),
+                        toEntry(product)));
+            }
+            CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+            current = snapshot;
+            snapshotMisses.evictAll();
+            return snapshot;
+        } catch (RuntimeException e) {
+            // Giữ lại việc chưa làm cho lần load sau
+            dirtyProductIds.addAll(changed);
+            if (full) {
+                fullReload.set(true);
+            }
+            throw e;
+        }
+    }
+
+    private CatalogEntry toEntry(ProductDTO product) {
+        try {
+            return new CatalogEntry(product, objectMapper.writeValueAsBytes(product));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize product " + product.getProductId(), e);
+        }
+    }
+
+    private record CatalogEntry(ProductDTO product, byte[] json) {
+    }
+
+    /**
+     * Snapshot immutable của catalog; các danh sách dẫn xuất được tính một lần khi dựng
+     */
+    private record CatalogSnapshot(Map<Integer, CatalogEntry> products, List<ProductDTO> featured,
+                                   List<ProductDTO> topViewed, List<byte[]> json) {
+
+        static CatalogSnapshot of(TreeMap<Integer, CatalogEntry> products) {
+            List<ProductDTO> featured = new ArrayList<>();
+            List<byte[]> json = new ArrayList<>(products.size());
+            for (CatalogEntry entry : products.values()) {
+                if (Boolean.TRUE.equals(entry.product().getIsFeatured())) {
+                    featured.add(entry.product());
+                }
+                json.add(entry.json());
+            }
+            List<ProductDTO> topViewed = products.values().stream()
+                    .map(CatalogEntry::product)
+                    .sorted(Comparator.comparing(ProductDTO::getViewCount,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(TOP_VIEWED_LIMIT)
+                    .toList();
+            return new CatalogSnapshot(Collections.unmodifiableMap(products), List.copyOf(featured), topViewed,
+                    List.copyOf(json));
+        }
+    }
+
+    private static class RefreshThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "catalog-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
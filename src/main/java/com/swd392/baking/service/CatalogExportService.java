@@ -0,0 +1,161 @@
+package com.swd392.baking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductDTO;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.ProductRepository;
+import com.swd392.baking.repository.ProductSizeRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export toàn bộ catalog dạng stream (NDJSON hoặc CSV).
+ * Sản phẩm được đọc bằng cursor forward-only và ghi ra theo từng chunk,
+ * nên bộ nhớ không tăng theo kích thước catalog.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER = "product_id,product_name,category_id,is_active,stock_quantity,"
+            + "main_image_url,price_id,size,sku,regular_price,promotion_price,promotion_start,promotion_end,effective_price,"
+            + "updated_at";
+
+    private final ProductRepository productRepository;
+    private final ProductSizeRepository productSizeRepository;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    /**
+     * Ghi catalog ra output. Nếu có since thì chỉ export sản phẩm thay đổi sau thời điểm đó
+     * (kể cả sản phẩm đã inactive, để bên nhận có thể xóa).
+     * updated_at là lần thay đổi cuối của sản phẩm hoặc bất kỳ size nào của nó, bên nhận dùng giá trị lớn nhất
+     * làm since cho lần sau.
+     */
+    @Transactional(readOnly = true)
+    public void exportCatalog(Format format, LocalDateTime since, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<Product> products = since != null
+                ? productRepository.streamProductsChangedSince(since)
+                : productRepository.streamActiveProducts()) {
+
+            Iterator<Product> iterator = products.iterator();
+            List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, format, writer);
+                    chunk.clear();
+                    // Bỏ các entity đã ghi khỏi persistence context
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void writeChunk(List<Product> chunk, Format format, Writer writer) throws IOException {
+        List<Integer> productIds = chunk.stream()
+                .map(Product::getProductId)
+                .collect(Collectors.toList());
+
+        // Load sizes của cả chunk trong một query thay vì từng sản phẩm
+        Map<Integer, List<ProductSize>> sizesByProduct = productSizeRepository.findByProduct_ProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(size -> size.getProduct().getProductId()));
+
+        for (Product product : chunk) {
+            List<ProductSize> sizes = sizesByProduct.getOrDefault(product.getProductId(), List.of());
+            if (format == Format.CSV) {
+                writeCsvRows(product, sizes, writer);
+            } else {
+                ProductDTO dto = productService.convertToDTO(product, sizes);
+                writer.write(objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    // Mỗi dòng CSV là một SKU; sản phẩm chưa có size vẫn có một dòng với cột size để trống
+    private void writeCsvRows(Product product, List<ProductSize> sizes, Writer writer) throws IOException {
+        LocalDateTime changedAt = ProductService.lastChangedAt(product, sizes);
+        if (sizes.isEmpty()) {
+            writeCsvRow(product, null, changedAt, writer);
+            return;
+        }
+        for (ProductSize size : sizes) {
+            writeCsvRow(product, size, changedAt, writer);
+        }
+    }
+
+    private void writeCsvRow(Product product, ProductSize size, LocalDateTime changedAt, Writer writer)
+            throws IOException {
+        Object[] columns = {
+                product.getProductId(),
+                product.getProductName(),
+                product.getCategoryId(),
+                product.getIsActive(),
+                product.getStockQuantity(),
+                product.getMainImageUrl(),
+                size != null ? size.getPriceId() : null,
+                size != null ? size.getSize() : null,
+                size != null ? size.getSku() : null,
+                size != null ? size.getRegularPrice() : null,
+                size != null ? size.getPromotionPrice() : null,
+                size != null ? size.getPromotionStart() : null,
+                size != null ? size.getPromotionEnd() : null,
+                size != null ? size.getEffectivePrice() : null,
+                changedAt
+        };
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(columns[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
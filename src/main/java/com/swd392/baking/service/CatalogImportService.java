@@ -0,0 +1,515 @@
+package com.swd392.baking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swd392.baking.model.CatalogImportResult;
+import com.swd392.baking.model.CatalogImportRow;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import hàng loạt Product / ProductSize từ file CSV hoặc JSON.
+ * File được đọc dạng stream, mỗi dòng được validate bằng constraint có sẵn trên entity,
+ * sau đó upsert theo SKU bằng JDBC batch, mỗi chunk một transaction. Outbox cho các sản phẩm đã đổi
+ * được ghi một lần sau chunk cuối (một batch), thay vì theo từng chunk / từng dòng.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // File không có cột promotion_price (has_promotion_price = 0) hoặc không có cột promotion_start / promotion_end
+    // (has_promotion_window = 0) thì giữ nguyên giá trị đang có, ví dụ file export cũ chưa có thời gian khuyến mãi.
+    // %s là table hint HOLDLOCK, chỉ thêm khi chạy trên SQL Server (H2 dùng trong test không hỗ trợ)
+    private static final String UPSERT_SIZE_SQL = "MERGE INTO products_size%s AS t"
+            + " USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?))"
+            + " AS s (sku, product_id, size, regular_price, promotion_price, promotion_start, promotion_end,"
+            + " has_promotion_price, has_promotion_window)"
+            + " ON t.sku = s.sku"
+            + " WHEN MATCHED THEN UPDATE SET product_id = s.product_id, size = s.size, regular_price = s.regular_price,"
+            + " promotion_price = CASE WHEN s.has_promotion_price = 1 THEN s.promotion_price ELSE t.promotion_price END,"
+            + " promotion_start = CASE WHEN s.has_promotion_window = 1 THEN s.promotion_start"
+            + " ELSE t.promotion_start END,"
+            + " promotion_end = CASE WHEN s.has_promotion_window = 1 THEN s.promotion_end ELSE t.promotion_end END,"
+            + " updated_at = CURRENT_TIMESTAMP"
+            + " WHEN NOT MATCHED THEN INSERT (sku, product_id, size, regular_price, promotion_price,"
+            + " promotion_start, promotion_end, created_at, updated_at)"
+            + " VALUES (s.sku, s.product_id, s.size, s.regular_price, s.promotion_price,"
+            + " s.promotion_start, s.promotion_end, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);";
+
+    private static final int[] UPSERT_SIZE_TYPES = {
+            Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.DECIMAL, Types.DECIMAL, Types.TIMESTAMP, Types.TIMESTAMP,
+            Types.INTEGER, Types.INTEGER
+    };
+
+    // Tồn kho mới không được thấp hơn số đang giữ cho giỏ hàng: điều kiện nằm trong WHERE để không đua với
+    // giỏ hàng đang giữ thêm hàng, không cập nhật được dòng nào thì dòng import bị báo lỗi
+    private static final String UPDATE_PRODUCT_SQL = "UPDATE products"
+            + " SET stock_quantity = COALESCE(?, stock_quantity), main_image_url = COALESCE(?, main_image_url),"
+            + " updated_at = CURRENT_TIMESTAMP"
+            + " WHERE product_id = ? AND COALESCE(?, stock_quantity) >= reserved_quantity";
+
+    private static final int[] UPDATE_PRODUCT_TYPES = {Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER};
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final OutboxService outboxService;
+    private volatile String upsertSizeSql;
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    /**
+     * Import catalog từ input stream. Dòng lỗi được bỏ qua và ghi vào kết quả,
+     * các dòng hợp lệ vẫn được import.
+     */
+    public CatalogImportResult importCatalog(Format format, InputStream in) throws IOException {
+        ImportContext context = new ImportContext();
+        List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (RowReader reader = format == Format.CSV ? new CsvRowReader(in) : new JsonRowReader(in)) {
+            ParsedRow parsed;
+            while ((parsed = reader.next()) != null) {
+                context.totalRows++;
+                String error = parsed.error != null ? parsed.error : validate(parsed.row);
+                if (error != null) {
+                    context.fail(parsed, error);
+                    continue;
+                }
+                chunk.add(parsed);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, context);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, context);
+            }
+        } finally {
+            // Kể cả khi đọc file lỗi giữa chừng: các chunk đã commit vẫn phải được báo cho cache
+            recordChanges(context);
+        }
+
+        log.info("Catalog import finished: {} rows, {} imported, {} failed",
+                context.totalRows, context.importedRows, context.failedRows);
+
+        return CatalogImportResult.builder()
+                .totalRows(context.totalRows)
+                .importedRows(context.importedRows)
+                .failedRows(context.failedRows)
+                .errors(context.errors)
+                .build();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void importChunk(List<ParsedRow> chunk, ImportContext context) {
+        try {
+            Set<Integer> productIds = transactionTemplate.execute(status -> upsertRows(chunk, context));
+            context.succeed(chunk.size(), productIds);
+        } catch (RuntimeException e) {
+            // Id sản phẩm vừa tạo trong chunk đã bị rollback
+            context.resolvedProducts.clear();
+            log.warn("Catalog import chunk failed, retrying {} rows one by one: {}", chunk.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (ParsedRow row : chunk) {
+                try {
+                    Set<Integer> productIds = transactionTemplate.execute(status -> upsertRows(List.of(row), context));
+                    context.succeed(1, productIds);
+                } catch (RuntimeException rowError) {
+                    context.resolvedProducts.clear();
+                    context.fail(row, NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+        log.info("Catalog import progress: {} rows read, {} imported, {} failed",
+                context.totalRows, context.importedRows, context.failedRows);
+    }
+
+    // Trả về id sản phẩm đã đổi, chỉ được tính khi transaction của chunk commit
+    private Set<Integer> upsertRows(List<ParsedRow> rows, ImportContext context) {
+        List<Object[]> sizeArgs = new ArrayList<>(rows.size());
+        List<Object[]> productArgs = new ArrayList<>();
+        List<CatalogImportRow> productRows = new ArrayList<>();
+        Set<Integer> productIds = new HashSet<>();
+
+        for (ParsedRow parsed : rows) {
+            CatalogImportRow row = parsed.row;
+            Integer productId = resolveProductId(row, context);
+            productIds.add(productId);
+
+            sizeArgs.add(new Object[]{
+                    row.getSku(), productId, row.getSize(), row.getRegularPrice(), row.getPromotionPrice(),
+                    row.getPromotionStart(), row.getPromotionEnd(),
+                    parsed.hasPromotionPrice ? 1 : 0, parsed.hasPromotionWindow ? 1 : 0
+            });
+            if (row.getStockQuantity() != null || row.getMainImageUrl() != null) {
+                productArgs.add(new Object[]{row.getStockQuantity(), row.getMainImageUrl(), productId,
+                        row.getStockQuantity()});
+                productRows.add(row);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(upsertSizeSql(), sizeArgs, UPSERT_SIZE_TYPES);
+        if (!productArgs.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, productArgs, UPDATE_PRODUCT_TYPES);
+            for (int i = 0; i < updated.length; i++) {
+                // Cả chunk rollback rồi chạy lại từng dòng, lúc đó lỗi này thuộc về đúng dòng vi phạm
+                if (updated[i] == 0) {
+                    throw new IllegalArgumentException("Stock quantity " + productRows.get(i).getStockQuantity()
+                            + " is below the quantity reserved in carts for product " + productArgs.get(i)[2]);
+                }
+            }
+        }
+        return productIds;
+    }
+
+    // MERGE / UPDATE bằng JDBC không qua entity listener: ghi outbox một lần cho mọi sản phẩm của lần import
+    private void recordChanges(ImportContext context) {
+        if (context.changedProducts.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxService.recordAll(OutboxService.PRODUCT,
+                context.changedProducts, OutboxService.PRODUCT_SIZE, OutboxEvent.ChangeType.UPDATED));
+    }
+
+    private String upsertSizeSql() {
+        String sql = upsertSizeSql;
+        if (sql == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = String.format(UPSERT_SIZE_SQL, "Microsoft SQL Server".equals(database) ? " WITH (HOLDLOCK)" : "");
+            upsertSizeSql = sql;
+        }
+        return sql;
+    }
+
+    private Integer resolveProductId(CatalogImportRow row, ImportContext context) {
+        String key = row.getProductId() != null
+                ? "#" + row.getProductId()
+                : row.getCategoryId() + "|" + row.getProductName();
+        Integer cached = context.resolvedProducts.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Integer productId;
+        if (row.getProductId() != null) {
+            if (!productRepository.existsById(row.getProductId())) {
+                throw new IllegalArgumentException("Product not found with id: " + row.getProductId());
+            }
+            productId = row.getProductId();
+        } else {
+            productId = productRepository.findProductIdsByNameAndCategory(row.getProductName(), row.getCategoryId())
+                    .stream()
+                    .findFirst()
+                    .orElseGet(() -> createProduct(row));
+        }
+        context.resolvedProducts.put(key, productId);
+        return productId;
+    }
+
+    private Integer createProduct(CatalogImportRow row) {
+        Product product = new Product();
+        product.setProductName(row.getProductName());
+        product.setCategoryId(row.getCategoryId());
+        product.setMainImageUrl(row.getMainImageUrl());
+        if (row.getStockQuantity() != null) {
+            product.setStockQuantity(row.getStockQuantity());
+        }
+        return productRepository.save(product).getProductId();
+    }
+
+    private String validate(CatalogImportRow row) {
+        Product product = new Product();
+        product.setProductId(row.getProductId());
+        product.setProductName(row.getProductName());
+        product.setCategoryId(row.getCategoryId());
+
+        ProductSize size = new ProductSize();
+        size.setProduct(product);
+        size.setSku(row.getSku());
+        size.setSize(row.getSize());
+        size.setRegularPrice(row.getRegularPrice());
+        size.setPromotionPrice(row.getPromotionPrice());
+        size.setPromotionStart(row.getPromotionStart());
+        size.setPromotionEnd(row.getPromotionEnd());
+
+        Set<String> messages = new LinkedHashSet<>();
+        // Sản phẩm có sẵn (có productId) thì không cần tên / category trong file
+        if (row.getProductId() == null) {
+            validator.validate(product).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .forEach(messages::add);
+        }
+        validator.validate(size).stream()
+                .map(ConstraintViolation::getMessage)
+                .forEach(messages::add);
+
+        if (row.getStockQuantity() != null && row.getStockQuantity() < 0) {
+            messages.add("Stock quantity must not be negative");
+        }
+        if (row.getPromotionStart() != null && row.getPromotionEnd() != null
+                && !row.getPromotionStart().isBefore(row.getPromotionEnd())) {
+            messages.add("Promotion start must be before promotion end");
+        }
+        return messages.isEmpty() ? null : String.join("; ", messages);
+    }
+
+    private static class ImportContext {
+        private int totalRows;
+        private int importedRows;
+        private int failedRows;
+        private final List<CatalogImportResult.RowError> errors = new ArrayList<>();
+        // "#productId" hoặc "categoryId|productName" -> productId
+        private final Map<String, Integer> resolvedProducts = new HashMap<>();
+        // Sản phẩm thuộc các chunk / dòng đã commit, ghi outbox sau chunk cuối
+        private final Set<Integer> changedProducts = new HashSet<>();
+
+        private void succeed(int rows, Set<Integer> productIds) {
+            importedRows += rows;
+            changedProducts.addAll(productIds);
+        }
+
+        private void fail(ParsedRow row, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                String sku = row.row != null ? row.row.getSku() : null;
+                errors.add(new CatalogImportResult.RowError(row.rowNumber, sku, message));
+            }
+        }
+    }
+
+    private static class ParsedRow {
+        private final int rowNumber;
+        private final CatalogImportRow row;
+        private final String error;
+        // Dòng có cột promotion_price / có cột promotion_start hoặc promotion_end (kể cả để trống)
+        private final boolean hasPromotionPrice;
+        private final boolean hasPromotionWindow;
+
+        private ParsedRow(int rowNumber, CatalogImportRow row, String error) {
+            this(rowNumber, row, error, false, false);
+        }
+
+        private ParsedRow(int rowNumber, CatalogImportRow row, String error,
+                          boolean hasPromotionPrice, boolean hasPromotionWindow) {
+            this.rowNumber = rowNumber;
+            this.row = row;
+            this.error = error;
+            this.hasPromotionPrice = hasPromotionPrice;
+            this.hasPromotionWindow = hasPromotionWindow;
+        }
+    }
+
+    private interface RowReader extends Closeable {
+        /**
+         * Trả về dòng tiếp theo, hoặc null khi hết file
+         */
+        ParsedRow next() throws IOException;
+    }
+
+    /**
+     * Đọc JSON array các CatalogImportRow, từng phần tử một
+     */
+    private class JsonRowReader implements RowReader {
+        private final MappingIterator<JsonNode> iterator;
+        private int rowNumber;
+        private boolean broken;
+
+        private JsonRowReader(InputStream in) throws IOException {
+            this.iterator = objectMapper.readerFor(JsonNode.class).readValues(in);
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            if (broken) {
+                return null;
+            }
+            try {
+                if (!iterator.hasNextValue()) {
+                    return null;
+                }
+                rowNumber++;
+                JsonNode node = iterator.nextValue();
+                try {
+                    return new ParsedRow(rowNumber, objectMapper.treeToValue(node, CatalogImportRow.class), null,
+                            node.has("promotionPrice"), node.has("promotionStart") || node.has("promotionEnd"));
+                } catch (JsonProcessingException e) {
+                    CatalogImportRow partial = CatalogImportRow.builder().sku(node.path("sku").asText(null)).build();
+                    return new ParsedRow(rowNumber, partial, "Invalid value: " + e.getOriginalMessage());
+                }
+            } catch (JsonProcessingException e) {
+                // JSON hỏng thì không thể đọc tiếp các phần tử sau
+                broken = true;
+                rowNumber++;
+                return new ParsedRow(rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+
+    /**
+     * Đọc CSV có header (cùng tên cột với file export), hỗ trợ giá trị trong dấu nháy kép
+     */
+    private static class CsvRowReader implements RowReader {
+        private final Reader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private boolean hasPromotionPrice;
+        private boolean hasPromotionWindow;
+        private int rowNumber;
+
+        private CsvRowReader(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> header = readRecord();
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(), i);
+            }
+            hasPromotionPrice = columns.containsKey("promotion_price");
+            hasPromotionWindow = columns.containsKey("promotion_start") || columns.containsKey("promotion_end");
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            List<String> record;
+            do {
+                record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            rowNumber++;
+            try {
+                CatalogImportRow row = CatalogImportRow.builder()
+                        .productId(parseInteger(value(record, "product_id")))
+                        .productName(value(record, "product_name"))
+                        .categoryId(parseInteger(value(record, "category_id")))
+                        .mainImageUrl(value(record, "main_image_url"))
+                        .stockQuantity(parseInteger(value(record, "stock_quantity")))
+                        .sku(value(record, "sku"))
+                        .size(value(record, "size"))
+                        .regularPrice(parseDecimal(value(record, "regular_price")))
+                        .promotionPrice(parseDecimal(value(record, "promotion_price")))
+                        .promotionStart(parseDateTime(value(record, "promotion_start")))
+                        .promotionEnd(parseDateTime(value(record, "promotion_end")))
+                        .build();
+                return new ParsedRow(rowNumber, row, null, hasPromotionPrice, hasPromotionWindow);
+            } catch (RuntimeException e) {
+                CatalogImportRow partial = CatalogImportRow.builder().sku(value(record, "sku")).build();
+                return new ParsedRow(rowNumber, partial, "Invalid value: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next == -1) {
+                                break;
+                            }
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private static Integer parseInteger(String value) {
+            return value == null ? null : Integer.valueOf(value);
+        }
+
+        private static BigDecimal parseDecimal(String value) {
+            return value == null ? null : new BigDecimal(value);
+        }
+
+        private static LocalDateTime parseDateTime(String value) {
+            return value == null ? null : LocalDateTime.parse(value);
+        }
+    }
+}
@@ -1,19 +1,151 @@
 package com.swd392.baking.service;
 
+import com.swd392.baking.event.OutboxSubscriber;
 import com.swd392.baking.model.Category;
+import com.swd392.baking.model.CategoryDTO;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.repository.CategoryParentView;
 import com.swd392.baking.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Cây category và bảng closure. Closure được dựng lại từ outbox trước CacheInvalidationBus (theo @Order),
+ * để các node nhận invalidation rồi đọc lại đã thấy cây mới.
+ */
+@Slf4j
 @Service
-public class CategoryService {
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CategoryService implements OutboxSubscriber {
+
+    private static final String DELETE_CLOSURE_SQL = "DELETE FROM category_closure";
+    private static final String INSERT_CLOSURE_SQL =
+            "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)";
 
     @Autowired
     private CategoryRepository categoryRepository;
 
-    public List<Category> getAllParentWithChildren() {
-        return categoryRepository.findByParentIsNull();
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Hash của các cặp (id, parentId) lần dựng closure gần nhất
+    private volatile Integer closureSignature;
+
+    /**
+     * Cây category từ gốc dưới dạng DTO: đọc cả bảng bằng một query rồi ghép cây trong bộ nhớ
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryDTO> getCategoryTree() {
+        List<Category> categories = categoryRepository.findAllByOrderByIdAsc();
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            // getParent() là proxy lazy, lấy id không cần load
+            if (category.getParent() == null) {
+                roots.add(category);
+            } else {
+                childrenByParent.computeIfAbsent(category.getParent().getId(), id -> new ArrayList<>()).add(category);
+            }
+        }
+        return toDTOs(roots, childrenByParent, new HashSet<>());
+    }
+
+    /**
+     * Dựng lại bảng closure nếu cây category thay đổi (kể cả sửa tay trong DB).
+     * Chạy ngay khi khởi động (lịch fixedDelay) rồi kiểm tra định kỳ; bảng CATEGORIES nhỏ nên việc so sánh rất rẻ.
+     */
+    @Scheduled(fixedDelayString = "${baking.category.closure-check-interval:PT5M}")
+    @Transactional
+    public void refreshClosureIfChanged() {
+        List<CategoryParentView> links = categoryRepository.findAllParentLinks();
+        int signature = signature(links);
+        if (closureSignature != null && closureSignature == signature) {
+            return;
+        }
+        rebuildClosure(links);
+        closureSignature = signature;
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.CATEGORY);
+    }
+
+    /**
+     * Category thay đổi qua JPA: dựng lại closure ngay thay vì chờ lần kiểm tra định kỳ
+     */
+    @Override
+    @Transactional
+    public void onEvents(List<OutboxEvent> events) {
+        refreshClosureIfChanged();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private static List<CategoryDTO> toDTOs(List<Category> categories, Map<Long, List<Category>> childrenByParent,
+                                            Set<Long> visited) {
+        List<CategoryDTO> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            // Dữ liệu sửa tay có thể tạo vòng, mỗi category chỉ xuất hiện một lần
+            if (visited.add(category.getId())) {
+                result.add(CategoryDTO.builder()
+                        .id(category.getId())
+                        .name(category.getName())
+                        .description(category.getDescription())
+                        .isActive(category.getIsActive())
+                        .createdAt(category.getCreatedAt())
+                        .updatedAt(category.getUpdatedAt())
+                        .children(toDTOs(childrenByParent.getOrDefault(category.getId(), List.of()),
+                                childrenByParent, visited))
+                        .build());
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private void rebuildClosure(List<CategoryParentView> links) {
+        Map<Long, Long> parentById = new HashMap<>();
+        for (CategoryParentView link : links) {
+            parentById.put(link.getId(), link.getParentId());
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Long descendantId : parentById.keySet()) {
+            // Đi ngược lên gốc; chặn vòng lặp nếu dữ liệu parent bị sai
+            Set<Long> visited = new HashSet<>();
+            Long ancestorId = descendantId;
+            int depth = 0;
+            while (ancestorId != null && visited.add(ancestorId)) {
+                rows.add(new Object[]{ancestorId.intValue(), descendantId.intValue(), depth});
+                ancestorId = parentById.get(ancestorId);
+                depth++;
+            }
+        }
+
+        jdbcTemplate.update(DELETE_CLOSURE_SQL);
+        jdbcTemplate.batchUpdate(INSERT_CLOSURE_SQL, rows);
+        log.info("Rebuilt category closure: {} categories, {} rows", parentById.size(), rows.size());
+    }
+
+    private static int signature(List<CategoryParentView> links) {
+        int hash = 1;
+        for (CategoryParentView link : links) {
+            hash = 31 * hash + link.getId().hashCode();
+            hash = 31 * hash + (link.getParentId() != null ? link.getParentId().hashCode() : 0);
+        }
+        return hash;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,340 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.CacheInvalidationListener;
+import com.swd392.baking.model.FacetResultDTO;
+import com.swd392.baking.repository.CategoryParentView;
+import com.swd392.baking.repository.CategoryRepository;
+import com.swd392.baking.repository.ProductFacetView;
+import com.swd392.baking.repository.ProductRepository;
+import com.swd392.baking.repository.ProductSizeRepository;
+import com.swd392.baking.repository.ProductSizeValueView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Facet engine cho trang category: mỗi giá trị facet (category, size, khoảng giá, còn hàng, featured)
+ * giữ một BitSet trên ordinal dày đặc của sản phẩm, nên giao các bộ lọc chỉ là phép AND bit.
+ * Index là snapshot bất biến; mỗi lần cập nhật tạo bản sao rồi thay thế, reader không cần khóa.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FacetService implements CacheInvalidationListener {
+
+    // SQL Server giới hạn ~2100 tham số mỗi câu lệnh
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductSizeRepository productSizeRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Value("${baking.facet.price-buckets:25,50,100}")
+    private List<BigDecimal> priceBoundaries;
+
+    private volatile FacetIndex index;
+
+    /**
+     * Lọc sản phẩm active theo các facet và đếm số sản phẩm cho từng giá trị facet.
+     * Trong cùng một facet các giá trị được OR, giữa các facet được AND.
+     */
+    public FacetResultDTO search(Integer categoryId, Set<String> sizes, Set<String> priceBuckets,
+                                 Boolean inStock, Boolean featured) {
+        FacetIndex current = index != null ? index : buildIfMissing();
+
+        BitSet categoryMask = categoryId != null
+                ? current.categories.getOrDefault(categoryId, new BitSet())
+                : null;
+        BitSet sizeMask = union(current.sizes, sizes);
+        BitSet priceMask = union(current.priceBuckets, priceBuckets);
+        BitSet stockMask = Boolean.TRUE.equals(inStock) ? current.inStock : null;
+        BitSet featuredMask = Boolean.TRUE.equals(featured) ? current.featured : null;
+
+        BitSet matched = intersect(current.all, categoryMask, sizeMask, priceMask, stockMask, featuredMask);
+        List<Integer> productIds = new ArrayList<>(matched.cardinality());
+        for (int ordinal = matched.nextSetBit(0); ordinal >= 0; ordinal = matched.nextSetBit(ordinal + 1)) {
+            productIds.add(current.productIds[ordinal]);
+        }
+
+        return FacetResultDTO.builder()
+                .totalProducts(productIds.size())
+                .productIds(productIds)
+                .categories(count(current.categories,
+                        intersect(current.all, sizeMask, priceMask, stockMask, featuredMask)))
+                .sizes(count(current.sizes,
+                        intersect(current.all, categoryMask, priceMask, stockMask, featuredMask)))
+                .priceBuckets(count(current.priceBuckets,
+                        intersect(current.all, categoryMask, sizeMask, stockMask, featuredMask)))
+                .inStock(countAnd(current.inStock,
+                        intersect(current.all, categoryMask, sizeMask, priceMask, featuredMask)))
+                .featured(countAnd(current.featured,
+                        intersect(current.all, categoryMask, sizeMask, priceMask, stockMask)))
+                .build();
+    }
+
+    /**
+     * Dựng lại toàn bộ index; chạy khi khởi động và định kỳ để bắt các thay đổi không đi qua outbox
+     * (khuyến mãi bắt đầu/kết thúc, sửa tay trong DB).
+     */
+    @Scheduled(fixedDelayString = "${baking.facet.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        FacetIndex rebuilt = new FacetIndex(bucketKeys(), loadParentLinks());
+        Map<Integer, List<String>> sizesByProduct = groupSizes(productSizeRepository.findActiveSizeValues());
+        for (ProductFacetView product : productRepository.findActiveProductFacets()) {
+            rebuilt.add(product, sizesByProduct.getOrDefault(product.getProductId(), List.of()), bucketOf(product));
+        }
+        index = rebuilt;
+        log.info("Rebuilt facet index: {} products", rebuilt.all.cardinality());
+    }
+
+    @Override
+    public Set<String> aggregateTypes() {
+        return Set.of(OutboxService.PRODUCT, OutboxService.CATEGORY);
+    }
+
+    /**
+     * Cập nhật tăng dần trên mọi node: chỉ đọc lại các sản phẩm thay đổi; cây category đổi thì dựng lại toàn bộ
+     */
+    @Override
+    public synchronized void onInvalidation(List<CacheInvalidation> invalidations) {
+        boolean categoryChanged = invalidations.stream()
+                .anyMatch(invalidation -> OutboxService.CATEGORY.equals(invalidation.getAggregateType()));
+        if (index == null || categoryChanged) {
+            rebuild();
+            return;
+        }
+
+        FacetIndex updated = index.copy();
+        List<Integer> ids = invalidations.stream()
+                .map(invalidation -> Integer.valueOf(invalidation.getAggregateId()))
+                .distinct()
+                .toList();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            chunk.forEach(updated::remove);
+            Map<Integer, List<String>> sizesByProduct =
+                    groupSizes(productSizeRepository.findActiveSizeValuesByProductIds(chunk));
+            for (ProductFacetView product : productRepository.findActiveProductFacetsByIds(chunk)) {
+                updated.add(product, sizesByProduct.getOrDefault(product.getProductId(), List.of()), bucketOf(product));
+            }
+        }
+        index = updated;
+        log.debug("Updated facet index for {} products", ids.size());
+    }
+
+    /**
+     * Bỏ index, request kế tiếp dựng lại
+     */
+    @Override
+    public synchronized void invalidateAll() {
+        index = null;
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    // Request đầu tiên đến trước lần rebuild theo lịch
+    private synchronized FacetIndex buildIfMissing() {
+        if (index == null) {
+            rebuild();
+        }
+        return index;
+    }
+
+    private Map<Integer, Integer> loadParentLinks() {
+        Map<Integer, Integer> parentByCategory = new HashMap<>();
+        for (CategoryParentView link : categoryRepository.findAllParentLinks()) {
+            parentByCategory.put(link.getId().intValue(),
+                    link.getParentId() != null ? link.getParentId().intValue() : null);
+        }
+        return parentByCategory;
+    }
+
+    private static Map<Integer, List<String>> groupSizes(List<ProductSizeValueView> values) {
+        Map<Integer, List<String>> sizesByProduct = new HashMap<>();
+        for (ProductSizeValueView value : values) {
+            sizesByProduct.computeIfAbsent(value.getProductId(), id -> new ArrayList<>()).add(value.getSize());
+        }
+        return sizesByProduct;
+    }
+
+    private List<String> bucketKeys() {
+        List<String> keys = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : priceBoundaries) {
+            keys.add(lower.toPlainString() + "-" + upper.toPlainString());
+            lower = upper;
+        }
+        keys.add(lower.toPlainString() + "+");
+        return keys;
+    }
+
+    private String bucketOf(ProductFacetView product) {
+        BigDecimal price = product.getMinPrice();
+        if (price == null) {
+            return null;
+        }
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : priceBoundaries) {
+            if (price.compareTo(upper) < 0) {
+                return lower.toPlainString() + "-" + upper.toPlainString();
+            }
+            lower = upper;
+        }
+        return lower.toPlainString() + "+";
+    }
+
+    private static BitSet union(Map<String, BitSet> facet, Set<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (String value : values) {
+            BitSet bits = facet.get(value);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet intersect(BitSet all, BitSet... masks) {
+        BitSet result = (BitSet) all.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private static int countAnd(BitSet bits, BitSet base) {
+        BitSet result = (BitSet) bits.clone();
+        result.and(base);
+        return result.cardinality();
+    }
+
+    private static <K> Map<K, Integer> count(Map<K, BitSet> facet, BitSet base) {
+        Map<K, Integer> counts = new LinkedHashMap<>();
+        facet.forEach((value, bits) -> counts.put(value, countAnd(bits, base)));
+        return counts;
+    }
+
+    /**
+     * Snapshot index; chỉ được sửa khi chưa publish (trong rebuild/copy dưới khóa của service)
+     */
+    private static final class FacetIndex {
+
+        private final Map<Integer, Integer> parentByCategory;
+        private final Map<Integer, Integer> ordinals;
+        private int[] productIds;
+
+        private final BitSet all;
+        private final Map<Integer, BitSet> categories;
+        private final Map<String, BitSet> sizes;
+        private final Map<String, BitSet> priceBuckets;
+        private final BitSet inStock;
+        private final BitSet featured;
+
+        FacetIndex(List<String> bucketKeys, Map<Integer, Integer> parentByCategory) {
+            this.parentByCategory = parentByCategory;
+            this.ordinals = new HashMap<>();
+            this.productIds = new int[64];
+            this.all = new BitSet();
+            this.categories = new TreeMap<>();
+            this.sizes = new TreeMap<>();
+            this.priceBuckets = new LinkedHashMap<>();
+            bucketKeys.forEach(key -> priceBuckets.put(key, new BitSet()));
+            this.inStock = new BitSet();
+            this.featured = new BitSet();
+        }
+
+        private FacetIndex(FacetIndex source) {
+            this.parentByCategory = source.parentByCategory;
+            this.ordinals = new HashMap<>(source.ordinals);
+            this.productIds = source.productIds.clone();
+            this.all = (BitSet) source.all.clone();
+            this.categories = deepCopy(source.categories, new TreeMap<>());
+            this.sizes = deepCopy(source.sizes, new TreeMap<>());
+            this.priceBuckets = deepCopy(source.priceBuckets, new LinkedHashMap<>());
+            this.inStock = (BitSet) source.inStock.clone();
+            this.featured = (BitSet) source.featured.clone();
+        }
+
+        FacetIndex copy() {
+            return new FacetIndex(this);
+        }
+
+        void add(ProductFacetView product, List<String> productSizes, String priceBucket) {
+            // Dùng lại ordinal trống đầu tiên để dải bit luôn dày đặc
+            int ordinal = all.nextClearBit(0);
+            if (ordinal >= productIds.length) {
+                productIds = Arrays.copyOf(productIds, productIds.length * 2);
+            }
+            productIds[ordinal] = product.getProductId();
+            ordinals.put(product.getProductId(), ordinal);
+            all.set(ordinal);
+
+            // Sản phẩm thuộc category của nó và mọi category tổ tiên
+            Set<Integer> visited = new HashSet<>();
+            for (Integer categoryId = product.getCategoryId();
+                 categoryId != null && visited.add(categoryId);
+                 categoryId = parentByCategory.get(categoryId)) {
+                categories.computeIfAbsent(categoryId, id -> new BitSet()).set(ordinal);
+            }
+            for (String size : productSizes) {
+                sizes.computeIfAbsent(size, value -> new BitSet()).set(ordinal);
+            }
+            if (priceBucket != null) {
+                priceBuckets.get(priceBucket).set(ordinal);
+            }
+            if (product.getAvailableQuantity() != null && product.getAvailableQuantity() > 0) {
+                inStock.set(ordinal);
+            }
+            if (Boolean.TRUE.equals(product.getIsFeatured())) {
+                featured.set(ordinal);
+            }
+        }
+
+        void remove(Integer productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) {
+                return;
+            }
+            all.clear(ordinal);
+            clear(categories.values(), ordinal);
+            clear(sizes.values(), ordinal);
+            clear(priceBuckets.values(), ordinal);
+            inStock.clear(ordinal);
+            featured.clear(ordinal);
+            categories.values().removeIf(BitSet::isEmpty);
+            sizes.values().removeIf(BitSet::isEmpty);
+        }
+
+        private static void clear(Collection<BitSet> bitSets, int ordinal) {
+            for (BitSet bits : bitSets) {
+                bits.clear(ordinal);
+            }
+        }
+
+        private static <K> Map<K, BitSet> deepCopy(Map<K, BitSet> source, Map<K, BitSet> target) {
+            source.forEach((key, bits) -> target.put(key, (BitSet) bits.clone()));
+            return target;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.InvalidationTransport;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport cho test (baking.invalidation.transport=in-memory): giao đồng bộ tới mọi receiver trong cùng JVM.
+ * Danh sách receiver là static nên nhiều application context trong một JVM đóng vai nhiều node.
+ */
+@Service
+@ConditionalOnProperty(name = "baking.invalidation.transport", havingValue = "in-memory")
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final List<Receiver> RECEIVERS = new CopyOnWriteArrayList<>();
+
+    private Receiver receiver;
+
+    @Override
+    public void publish(List<CacheInvalidation> invalidations) {
+        List<CacheInvalidation> versioned = invalidations.stream()
+                .map(invalidation -> new CacheInvalidation(VERSION.incrementAndGet(), invalidation.getAggregateType(),
+                        invalidation.getAggregateId(), invalidation.getEntityType(), invalidation.getEntityId(),
+                        invalidation.getChangeType()))
+                .toList();
+        RECEIVERS.forEach(target -> target.accept(versioned));
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        this.receiver = receiver;
+        RECEIVERS.add(receiver);
+    }
+
+    @PreDestroy
+    public void close() {
+        RECEIVERS.remove(receiver);
+    }
+}
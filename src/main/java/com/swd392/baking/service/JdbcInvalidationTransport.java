@@ -0,0 +1,140 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.InvalidationTransport;
+import com.swd392.baking.model.CacheInvalidationRecord;
+import com.swd392.baking.repository.CacheInvalidationRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Transport mặc định: ghi thông điệp vào bảng cache_invalidations, mỗi node poll các dòng có id > con trỏ riêng.
+ * <p>
+ * Id IDENTITY có thể commit không theo thứ tự (hai node cùng insert), nên con trỏ chỉ vượt qua một id sau khi
+ * node đã thấy nó được baking.invalidation.settle-delay; dòng id nhỏ hơn commit muộn trong khoảng đó vẫn được nhận.
+ * Lâu hơn baking.invalidation.retention không poll được thì dòng cũ có thể đã bị dọn, node phải resync toàn bộ.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "baking.invalidation.transport", havingValue = "jdbc", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final String INSERT_SQL = "INSERT INTO cache_invalidations"
+            + " (aggregate_type, aggregate_id, entity_type, entity_id, change_type, created_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationRecordRepository recordRepository;
+
+    @Value("${baking.invalidation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${baking.invalidation.settle-delay:PT5S}")
+    private Duration settleDelay;
+
+    @Value("${baking.invalidation.retention:P1D}")
+    private Duration retention;
+
+    private volatile Receiver receiver;
+
+    // Mọi id <= cursor đã được giao; id lớn hơn đã giao -> thời điểm (nanoTime) node này thấy lần đầu
+    private Long cursor;
+    private final TreeMap<Long, Long> seenAfterCursor = new TreeMap<>();
+    private long lastPollNanos;
+
+    @Override
+    public void publish(List<CacheInvalidation> invalidations) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(invalidations.size());
+        for (CacheInvalidation invalidation : invalidations) {
+            args.add(new Object[]{invalidation.getAggregateType(), invalidation.getAggregateId(),
+                    invalidation.getEntityType(), invalidation.getEntityId(),
+                    invalidation.getChangeType().name(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    @Scheduled(fixedDelayString = "${baking.invalidation.poll-interval:PT1S}")
+    public synchronized void poll() {
+        Receiver target = receiver;
+        if (target == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        try {
+            if (cursor == null) {
+                // Cache của node mới khởi động đang rỗng, chỉ cần nhận thay đổi từ thời điểm này
+                cursor = recordRepository.findMaxId();
+            } else if (now - lastPollNanos > retention.toNanos()) {
+                log.warn("Invalidation poll was down longer than retention, resyncing all caches");
+                cursor = recordRepository.findMaxId();
+                seenAfterCursor.clear();
+                target.resync();
+            }
+
+            List<CacheInvalidation> received = new ArrayList<>();
+            List<CacheInvalidationRecord> rows;
+            long after = cursor;
+            do {
+                rows = recordRepository.findAfter(after, PageRequest.of(0, batchSize));
+                for (CacheInvalidationRecord row : rows) {
+                    if (seenAfterCursor.putIfAbsent(row.getId(), now) == null) {
+                        received.add(toInvalidation(row));
+                    }
+                    after = row.getId();
+                }
+            } while (rows.size() == batchSize);
+
+            advanceCursor(now);
+            lastPollNanos = now;
+            target.accept(received);
+        } catch (RuntimeException e) {
+            log.warn("Cannot poll cache invalidations, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${baking.invalidation.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} expired cache invalidations", deleted);
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private void advanceCursor(long now) {
+        while (!seenAfterCursor.isEmpty()) {
+            Map.Entry<Long, Long> first = seenAfterCursor.firstEntry();
+            if (now - first.getValue() < settleDelay.toNanos()) {
+                return;
+            }
+            cursor = first.getKey();
+            seenAfterCursor.pollFirstEntry();
+        }
+    }
+
+    private static CacheInvalidation toInvalidation(CacheInvalidationRecord row) {
+        return new CacheInvalidation(row.getId(), row.getAggregateType(), row.getAggregateId(),
+                row.getEntityType(), row.getEntityId(), row.getChangeType());
+    }
+}
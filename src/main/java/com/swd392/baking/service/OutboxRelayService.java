@@ -0,0 +1,106 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.OutboxSubscriber;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Poll bảng outbox_events và relay theo lô tới các OutboxSubscriber trong cùng process.
+ * Lô chỉ được đánh dấu processed khi mọi subscriber xử lý xong (at-least-once); event luôn đi theo
+ * thứ tự id nên thứ tự trong từng aggregate được giữ nguyên. Sau baking.outbox.max-attempts lần lỗi
+ * lô bị bỏ qua để không chặn các event phía sau.
+ * <p>
+ * Khi chạy nhiều node, chỉ node giữ lease "outbox-relay" (bảng scheduler_leases) mới relay, nên mỗi event
+ * chỉ được giao cho một node và thứ tự theo id vẫn giữ được. Node giữ lease gia hạn mỗi lần poll; nếu node
+ * đó chết, node khác tiếp quản sau baking.outbox.lease-ttl. Một lô chạy lâu hơn lease-ttl có thể bị node
+ * khác giao lại, vẫn nằm trong at-least-once. Đồng hồ các node cần đồng bộ với sai lệch nhỏ hơn lease-ttl.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelayService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final SchedulerLeaseService schedulerLeases;
+    private final List<OutboxSubscriber> subscribers;
+
+    private static final String LEASE_NAME = "outbox-relay";
+
+    @Value("${baking.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${baking.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${baking.outbox.retention:P1D}")
+    private Duration retention;
+
+    @Value("${baking.outbox.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    @Scheduled(fixedDelayString = "${baking.outbox.poll-interval:PT1S}")
+    public synchronized void relay() {
+        if (!schedulerLeases.acquire(LEASE_NAME, leaseTtl)) {
+            return;
+        }
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findUnprocessed(PageRequest.of(0, batchSize));
+            if (batch.isEmpty() || !dispatch(batch)) {
+                return;
+            }
+        } while (batch.size() == batchSize && schedulerLeases.acquire(LEASE_NAME, leaseTtl));
+    }
+
+    @Scheduled(fixedDelayString = "${baking.outbox.cleanup-interval:PT1H}")
+    public void deleteProcessed() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} processed outbox events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        schedulerLeases.release(LEASE_NAME);
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    // Trả về false nếu lô lỗi và phải giao lại ở lần poll sau
+    private boolean dispatch(List<OutboxEvent> batch) {
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        try {
+            for (OutboxSubscriber subscriber : subscribers) {
+                List<OutboxEvent> events = batch.stream()
+                        .filter(event -> subscriber.aggregateTypes().contains(event.getAggregateType()))
+                        .toList();
+                if (!events.isEmpty()) {
+                    subscriber.onEvents(events);
+                }
+            }
+        } catch (RuntimeException e) {
+            int attempts = batch.get(0).getAttempts() + 1;
+            if (attempts < maxAttempts) {
+                outboxEventRepository.incrementAttempts(ids);
+                log.warn("Outbox relay failed for events {}..{} (attempt {}), will retry: {}",
+                        ids.get(0), ids.get(ids.size() - 1), attempts, e.getMessage());
+                return false;
+            }
+            log.error("Giving up outbox events {}..{} after {} attempts", ids.get(0), ids.get(ids.size() - 1), attempts, e);
+        }
+        outboxEventRepository.markProcessed(ids, LocalDateTime.now());
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.model.Cart;
+import com.swd392.baking.model.CartItem;
+import com.swd392.baking.model.Category;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ghi dòng outbox bằng JDBC trên cùng connection / transaction với thay đổi dữ liệu.
+ * Thay đổi qua entity được ghi tự động (OutboxEntityListener); câu lệnh UPDATE hàng loạt và JDBC
+ * phải gọi record(...) tường minh. Bộ đếm view_count / sold_count không đi qua outbox.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String PRODUCT = "Product";
+    public static final String PRODUCT_SIZE = "ProductSize";
+    public static final String CATEGORY = "Category";
+    public static final String CART = "Cart";
+    public static final String CART_ITEM = "CartItem";
+    // Giỏ hàng theo chủ sở hữu (cartOwnerId), để node khác cập nhật tóm tắt / SSE mà không cần tra cartId
+    public static final String CART_OWNER = "CartOwner";
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events"
+            + " (aggregate_type, aggregate_id, entity_type, entity_id, change_type, created_at, attempts)"
+            + " VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ghi thay đổi của một entity, quy về aggregate của nó
+     */
+    public void recordEntityChange(Object entity, OutboxEvent.ChangeType changeType) {
+        if (entity instanceof Product product) {
+            record(PRODUCT, product.getProductId(), PRODUCT, product.getProductId(), changeType);
+        } else if (entity instanceof ProductSize size) {
+            record(PRODUCT, size.getProduct().getProductId(), PRODUCT_SIZE, size.getPriceId(), changeType);
+        } else if (entity instanceof Category category) {
+            record(CATEGORY, category.getId(), CATEGORY, category.getId(), changeType);
+        } else if (entity instanceof Cart cart) {
+            record(CART, cart.getCartId(), CART, cart.getCartId(), changeType);
+        } else if (entity instanceof CartItem item) {
+            record(CART, item.getCart().getCartId(), CART_ITEM, item.getCartItemId(), changeType);
+        }
+    }
+
+    public void record(String aggregateType, Object aggregateId, String entityType, Object entityId,
+                       OutboxEvent.ChangeType changeType) {
+        jdbcTemplate.update(INSERT_SQL, aggregateType, String.valueOf(aggregateId), entityType,
+                entityId != null ? String.valueOf(entityId) : null, changeType.name(), LocalDateTime.now());
+    }
+
+    /**
+     * Id aggregate CartOwner của giỏ hàng user / guest, cũng là khóa của bộ đếm tóm tắt và kết nối SSE
+     */
+    public static String cartOwnerId(Integer userId, String sessionId) {
+        return userId != null ? "u:" + userId : "s:" + sessionId;
+    }
+
+    /**
+     * Ghi cùng một loại thay đổi cho nhiều aggregate trong một batch (import, cập nhật hàng loạt)
+     */
+    public void recordAll(String aggregateType, Collection<?> aggregateIds, String entityType,
+                          OutboxEvent.ChangeType changeType) {
+        if (aggregateIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(aggregateIds.size());
+        for (Object aggregateId : aggregateIds) {
+            args.add(new Object[]{aggregateType, String.valueOf(aggregateId), entityType, null, changeType.name(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+}
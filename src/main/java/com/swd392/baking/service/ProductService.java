@@ -1,17 +1,29 @@
 package com.swd392.baking.service;
 
+import com.swd392.baking.model.Money;
+import com.swd392.baking.model.ProductCardDTO;
 import com.swd392.baking.model.ProductDTO;
 import com.swd392.baking.model.ProductSizeDTO;
 import com.swd392.baking.model.Product;
 import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.ProductCardView;
 import com.swd392.baking.repository.ProductRepository;
 import com.swd392.baking.repository.ProductSizeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,71 +31,73 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductService {
 
+    private static final int LOAD_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
     private final ProductSizeRepository productSizeRepository;
+    private final RelatedProductService relatedProductService;
+    private final ProductStatsService productStatsService;
 
     /**
-     * Lấy sản phẩm theo ID
+     * Lấy sản phẩm theo ID (không đếm lượt xem; lượt xem được đếm ở CatalogCacheService cho mỗi request)
      */
     public ProductDTO getProductById(Integer productId) {
         Product product = productRepository.findByProductIdAndIsActiveTrue(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-
-        // Tăng view count
-        incrementViewCount(productId);
-
         return convertToDTO(product);
     }
 
     /**
-     * Lấy 10 sản phẩm có view count cao nhất
+     * Sản phẩm active theo ID; rỗng nếu không có hoặc đã ngừng bán
      */
-    public List<ProductDTO> getTop10MostViewed() {
-        List<Product> products = productRepository.findTop10ByIsActiveTrueOrderByViewCountDesc();
-        return products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public Optional<ProductDTO> findActiveProductById(Integer productId) {
+        return productRepository.findByProductIdAndIsActiveTrue(productId).map(this::convertToDTO);
     }
 
     /**
-     * Lấy sản phẩm featured cho trang home
+     * Id sản phẩm có khuyến mãi bắt đầu hoặc kết thúc trong khoảng (from, to]: giá hiệu lực đổi theo thời gian
+     * mà không có thay đổi dữ liệu nào đi qua outbox
      */
-    public List<ProductDTO> getFeaturedProducts() {
-        List<Product> products = productRepository.findByIsFeaturedTrueAndIsActiveTrue();
-        return products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<Integer> getProductIdsWithPromotionChangeBetween(LocalDateTime from, LocalDateTime to) {
+        return productSizeRepository.findProductIdsWithPromotionBoundariesBetween(from, to);
     }
 
     /**
-     * Tăng view count
+     * Toàn bộ sản phẩm active kèm size (2 query), dùng để dựng catalog trong CatalogCacheService
      */
-    @Transactional
-    public void incrementViewCount(Integer productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        product.setViewCount(product.getViewCount() + 1);
-        productRepository.save(product);
+    public List<ProductDTO> loadActiveProducts() {
+        Map<Integer, List<ProductSize>> sizesByProduct = groupByProduct(productSizeRepository.findActiveProductSizes());
+        return productRepository.listAllProducts().stream()
+                .map(product -> convertToDTO(product, sizesByProduct.getOrDefault(product.getProductId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Lấy sản pham active by category
+     * Các sản phẩm active trong danh sách id kèm size; id không tồn tại hoặc inactive thì không có trong kết quả
      */
-    public List<ProductDTO> getActiveProductsByCategory(Integer categoryId) {
-        List<Product> products = productRepository.findProductsByCategory(categoryId);
-        return products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<ProductDTO> loadActiveProducts(Collection<Integer> productIds) {
+        List<ProductDTO> products = new ArrayList<>(productIds.size());
+        List<Integer> ids = List.copyOf(productIds);
+        // SQL Server giới hạn ~2100 tham số mỗi câu lệnh
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            Map<Integer, List<ProductSize>> sizesByProduct =
+                    groupByProduct(productSizeRepository.findByProduct_ProductIdIn(chunk));
+            for (Product product : productRepository.findAllById(chunk)) {
+                if (Boolean.TRUE.equals(product.getIsActive())) {
+                    products.add(convertToDTO(product,
+                            sizesByProduct.getOrDefault(product.getProductId(), List.of())));
+                }
+            }
+        }
+        return products;
     }
 
     /**
-     * Lấy sản pham active by category
+     * Id sản phẩm active thuộc category và các category con
      */
-    public List<ProductDTO> listAllProductIsActive() {
-        List<Product> products = productRepository.listAllProducts();
-        return products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<Integer> getActiveProductIdsByCategory(Integer categoryId) {
+        return productRepository.findActiveProductIdsInCategoryTree(categoryId);
     }
 
     /**
@@ -91,48 +105,71 @@ public class ProductService {
      */
     private ProductDTO convertToDTO(Product product) {
         List<ProductSize> sizes = productSizeRepository.findByProduct_ProductId(product.getProductId());
+        return convertToDTO(product, sizes);
+    }
 
-        // Convert sizes to DTO
+    /**
+     * Convert Product entity to DTO với danh sách size đã load sẵn
+     */
+    public ProductDTO convertToDTO(Product product, List<ProductSize> sizes) {
+        // Convert sizes to DTO (list immutable, lưu gọn trong mảng)
         List<ProductSizeDTO> sizeDTOs = sizes.stream()
                 .map(this::convertSizeToDTO)
-                .collect(Collectors.toList());
+                .toList();
 
-        // Calculate min and max price
-        BigDecimal minPrice = sizes.stream()
-                .map(ProductSize::getEffectivePrice)
-                .min(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-
-        BigDecimal maxPrice = sizes.stream()
-                .map(ProductSize::getEffectivePrice)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
+        // Calculate min and max price (Money, một vòng lặp)
+        long minPrice = Long.MAX_VALUE;
+        long maxPrice = Long.MIN_VALUE;
+        for (ProductSize size : sizes) {
+            long price = size.getEffectivePriceMinor();
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+        }
+        if (sizes.isEmpty()) {
+            minPrice = Money.ZERO;
+            maxPrice = Money.ZERO;
+        }
 
         return ProductDTO.builder()
                 .productId(product.getProductId())
                 .productName(product.getProductName())
                 .description(product.getDescription())
                 .categoryId(product.getCategoryId())
-                .size(product.getSize())
+                .size(intern(product.getSize()))
                 .stockQuantity(product.getStockQuantity())
-                .mainImageUrl(product.getMainImageUrl())
-                .imageUrls(product.getImageUrlsList())
+                .mainImageUrl(intern(product.getMainImageUrl()))
+                .imageUrls(product.getImageUrls().stream().map(ProductService::intern).toList())
                 .isFeatured(product.getIsFeatured())
+                .isActive(product.getIsActive())
                 .viewCount(product.getViewCount())
                 .soldCount(product.getSoldCount())
-                .minPrice(minPrice)
-                .maxPrice(maxPrice)
+                .minPrice(Money.toBigDecimal(minPrice))
+                .maxPrice(Money.toBigDecimal(maxPrice))
                 .sizes(sizeDTOs)
+                .updatedAt(lastChangedAt(product, sizes))
                 .build();
     }
 
+    /**
+     * Lần thay đổi cuối của sản phẩm hoặc size của nó (sửa giá chỉ cập nhật updated_at của size)
+     */
+    static LocalDateTime lastChangedAt(Product product, List<ProductSize> sizes) {
+        LocalDateTime changedAt = product.getUpdatedAt();
+        for (ProductSize size : sizes) {
+            if (size.getUpdatedAt() != null && (changedAt == null || size.getUpdatedAt().isAfter(changedAt))) {
+                changedAt = size.getUpdatedAt();
+            }
+        }
+        return changedAt;
+    }
+
     /**
      * Convert ProductSize entity to DTO
      */
     private ProductSizeDTO convertSizeToDTO(ProductSize size) {
         return ProductSizeDTO.builder()
                 .priceId(size.getPriceId())
-                .size(size.getSize())
+                .size(intern(size.getSize()))
                 .sku(size.getSku())
                 .regularPrice(size.getRegularPrice())
                 .promotionPrice(size.getPromotionPrice())
@@ -142,26 +179,99 @@ public class ProductService {
                 .build();
     }
 
-    public List<ProductDTO> getRelatedProductsByCategory(Integer productId, Integer limit) {
-        // Lấy thông tin sản phẩm hiện tại
-        Product currentProduct = productRepository.findByProductIdAndIsActiveTrue(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+    /**
+     * Lấy thẻ tất cả sản phẩm active (projection, không load cột LOB)
+     */
+    public List<ProductCardDTO> listAllProductCards() {
+        return productRepository.findActiveProductCards().stream()
+                .map(this::convertToCardDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lấy thẻ sản phẩm active theo category và các category con (projection, không load cột LOB)
+     */
+    public List<ProductCardDTO> getProductCardsByCategory(Integer categoryId) {
+        return productRepository.findActiveProductCardsInCategoryTree(categoryId).stream()
+                .map(this::convertToCardDTO)
+                .collect(Collectors.toList());
+    }
 
-        // Lấy tất cả sản phẩm cùng category
-        List<Product> relatedProducts = productRepository.findByCategoryIdAndIsActiveTrue(currentProduct.getCategoryId());
+    public List<ProductCardDTO> getRelatedProductsByCategory(Integer productId, Integer limit) {
+        int size = limit != null ? limit : 8;
+
+        // Ưu tiên danh sách tính sẵn (mua kèm, category gần, giá gần) - chỉ tra O(N)
+        int[] relatedIds = relatedProductService.getRelatedProductIds(productId);
+        if (relatedIds.length > 0) {
+            return getProductCardsInOrder(Arrays.stream(relatedIds).limit(size).boxed().toList());
+        }
+
+        // Sản phẩm mới chưa có danh sách: lấy cùng category
+        Integer categoryId = productRepository.findActiveCategoryIdByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
 
-        // Loại bỏ sản phẩm hiện tại và giới hạn số lượng
-        return relatedProducts.stream()
-                .filter(p -> !p.getProductId().equals(productId))
-                .limit(limit != null ? limit : 8)
-                .map(this::convertToDTO)
+        // Lấy sản phẩm cùng category (trừ sản phẩm hiện tại), giới hạn số lượng ngay trong SQL
+        return productRepository.findRelatedProductCards(categoryId, productId, PageRequest.of(0, size)).stream()
+                .map(this::convertToCardDTO)
                 .collect(Collectors.toList());
     }
 
     /**
      * Overload method với limit mặc định
      */
-    public List<ProductDTO> getRelatedProductsByCategory(Integer productId) {
+    public List<ProductCardDTO> getRelatedProductsByCategory(Integer productId) {
         return getRelatedProductsByCategory(productId, 8);
     }
+
+    /**
+     * Sản phẩm bán chạy trong cửa sổ (hôm nay / 7 ngày / 30 ngày), xếp hạng sẵn trong bộ nhớ
+     */
+    public List<ProductCardDTO> getBestSellers(ProductStatsService.Window window, int limit) {
+        return getProductCardsInOrder(productStatsService.getBestSellerIds(window, limit));
+    }
+
+    /**
+     * Load thẻ sản phẩm theo id (tra theo khóa chính) và giữ nguyên thứ tự của danh sách id
+     */
+    private List<ProductCardDTO> getProductCardsInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, ProductCardView> cards = productRepository.findActiveProductCardsByIds(ids).stream()
+                .collect(Collectors.toMap(ProductCardView::getProductId, Function.identity()));
+        return ids.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToCardDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert card projection to DTO
+     */
+    private ProductCardDTO convertToCardDTO(ProductCardView card) {
+        return ProductCardDTO.builder()
+                .productId(card.getProductId())
+                .productName(card.getProductName())
+                .categoryId(card.getCategoryId())
+                .size(card.getSize())
+                .stockQuantity(card.getStockQuantity())
+                .mainImageUrl(card.getMainImageUrl())
+                .isFeatured(card.getIsFeatured())
+                .viewCount(card.getViewCount())
+                .soldCount(card.getSoldCount())
+                .minPrice(card.getMinPrice() != null ? card.getMinPrice() : BigDecimal.ZERO)
+                .maxPrice(card.getMaxPrice() != null ? card.getMaxPrice() : BigDecimal.ZERO)
+                .build();
+    }
+
+    private static Map<Integer, List<ProductSize>> groupByProduct(List<ProductSize> sizes) {
+        return sizes.stream().collect(Collectors.groupingBy(size -> size.getProduct().getProductId()));
+    }
+
+    // Nhãn size và URL ảnh lặp lại giữa nhiều sản phẩm (mainImageUrl thường trùng ảnh đầu tiên):
+    // dùng chung một String thay vì mỗi DTO giữ một bản
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
 }
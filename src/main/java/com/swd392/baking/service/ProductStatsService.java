@@ -0,0 +1,187 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.ProductSoldEvent;
+import com.swd392.baking.event.ProductViewedEvent;
+import com.swd392.baking.repository.ProductSalesDailyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gom các lượt xem / lượt bán trong bộ nhớ rồi ghi xuống DB theo lô (view_count, sold_count,
+ * product_sales_daily). Sau mỗi lần ghi, bảng xếp hạng bán chạy (hôm nay / 7 ngày / 30 ngày) được đọc lại từ
+ * product_sales_daily, nên mọi node có cùng xếp hạng (trễ tối đa một chu kỳ flush) mà request đọc không cần
+ * ORDER BY trên bảng PRODUCTS.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductStatsService {
+
+    public enum Window {
+        TODAY(1), WEEK(7), MONTH(30);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+    }
+
+    private static final int MAX_RANKED = 50;
+
+    private static final String INCREMENT_VIEWS_SQL =
+            "UPDATE products SET view_count = view_count + ? WHERE product_id = ?";
+    private static final String INCREMENT_SOLD_SQL =
+            "UPDATE products SET sold_count = sold_count + ? WHERE product_id = ?";
+    private static final String INCREMENT_DAILY_SQL =
+            "UPDATE product_sales_daily SET quantity = quantity + ? WHERE product_id = ? AND sale_date = ?";
+    private static final String INSERT_DAILY_SQL =
+            "INSERT INTO product_sales_daily (product_id, sale_date, quantity) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductSalesDailyRepository productSalesDailyRepository;
+
+    // Số tăng chưa ghi xuống DB; merge/remove trên ConcurrentHashMap nên không mất lượt khi flush song song
+    private final Map<Integer, Long> pendingViews = new ConcurrentHashMap<>();
+    private final Map<SaleKey, Long> pendingSales = new ConcurrentHashMap<>();
+
+    private volatile Map<Window, List<Integer>> rankings = new EnumMap<>(Window.class);
+
+    @EventListener
+    public void onProductViewed(ProductViewedEvent event) {
+        pendingViews.merge(event.getProductId(), 1L, Long::sum);
+    }
+
+    @TransactionalEventListener
+    public void onProductSold(ProductSoldEvent event) {
+        LocalDate day = event.getSoldAt().toLocalDate();
+        pendingSales.merge(new SaleKey(event.getProductId(), day), (long) event.getQuantity(), Long::sum);
+    }
+
+    /**
+     * Id các sản phẩm bán chạy nhất trong cửa sổ, lấy từ bảng xếp hạng tính sẵn
+     */
+    public List<Integer> getBestSellerIds(Window window, int limit) {
+        List<Integer> ranked = rankings.getOrDefault(window, List.of());
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    /**
+     * Ghi các số tăng đang chờ xuống DB trong một transaction rồi đọc lại bảng xếp hạng.
+     * Nếu ghi lỗi, số tăng được cộng trả lại để lần sau ghi tiếp.
+     */
+    @Scheduled(fixedDelayString = "${baking.stats.flush-interval:PT30S}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Integer, Long> views = drain(pendingViews);
+        Map<SaleKey, Long> sales = drain(pendingSales);
+
+        if (!views.isEmpty() || !sales.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    incrementCounters(INCREMENT_VIEWS_SQL, views);
+                    incrementCounters(INCREMENT_SOLD_SQL, soldByProduct(sales));
+                    incrementDailySales(sales);
+                });
+                log.debug("Flushed {} view counters and {} sale counters", views.size(), sales.size());
+            } catch (RuntimeException e) {
+                views.forEach((productId, count) -> pendingViews.merge(productId, count, Long::sum));
+                sales.forEach((key, quantity) -> pendingSales.merge(key, quantity, Long::sum));
+                log.warn("Cannot flush product counters, will retry: {}", e.getMessage());
+            }
+        }
+
+        loadRankings();
+    }
+
+    /**
+     * Đọc bảng xếp hạng từ product_sales_daily; lỗi thì giữ bảng cũ đến lần flush sau
+     */
+    @PostConstruct
+    void loadRankings() {
+        LocalDate today = LocalDate.now();
+        Map<Window, List<Integer>> loaded = new EnumMap<>(Window.class);
+        try {
+            for (Window window : Window.values()) {
+                loaded.put(window, productSalesDailyRepository.findTopSellingProductIds(
+                        today.minusDays(window.days - 1), PageRequest.of(0, MAX_RANKED)));
+            }
+            rankings = loaded;
+        } catch (RuntimeException e) {
+            log.warn("Cannot load best-seller rankings, keeping the previous ones: {}", e.getMessage());
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private static <K> Map<K, Long> drain(Map<K, Long> pending) {
+        Map<K, Long> drained = new HashMap<>();
+        for (K key : pending.keySet()) {
+            Long value = pending.remove(key);
+            if (value != null) {
+                drained.put(key, value);
+            }
+        }
+        return drained;
+    }
+
+    private static Map<Integer, Long> soldByProduct(Map<SaleKey, Long> sales) {
+        Map<Integer, Long> sold = new HashMap<>();
+        sales.forEach((key, quantity) -> sold.merge(key.productId(), quantity, Long::sum));
+        return sold;
+    }
+
+    private void incrementCounters(String sql, Map<Integer, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(increments.size());
+        increments.forEach((productId, amount) -> args.add(new Object[]{amount, productId}));
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    // Cộng vào dòng (product, ngày) đã có; dòng nào chưa có thì insert
+    private void incrementDailySales(Map<SaleKey, Long> sales) {
+        if (sales.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<SaleKey, Long>> entries = new ArrayList<>(sales.entrySet());
+        List<Object[]> updates = new ArrayList<>(entries.size());
+        for (Map.Entry<SaleKey, Long> entry : entries) {
+            updates.add(new Object[]{entry.getValue(), entry.getKey().productId(), entry.getKey().day()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(INCREMENT_DAILY_SQL, updates);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Map.Entry<SaleKey, Long> entry = entries.get(i);
+                inserts.add(new Object[]{entry.getKey().productId(), entry.getKey().day(), entry.getValue()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DAILY_SQL, inserts);
+        }
+    }
+
+    private record SaleKey(Integer productId, LocalDate day) {
+    }
+}
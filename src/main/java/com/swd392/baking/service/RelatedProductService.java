@@ -0,0 +1,349 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.model.ProductRelated;
+import com.swd392.baking.repository.CartItemRepository;
+import com.swd392.baking.repository.CategoryParentView;
+import com.swd392.baking.repository.CategoryRepository;
+import com.swd392.baking.repository.ProductFacetView;
+import com.swd392.baking.repository.ProductPairCountView;
+import com.swd392.baking.repository.ProductRelatedRepository;
+import com.swd392.baking.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tính sẵn top-N sản phẩm liên quan cho mỗi sản phẩm từ: số lần mua kèm trong cart_items,
+ * khoảng cách category trên cây và độ gần về giá. Kết quả giữ trong bộ nhớ dạng int[]
+ * (trang sản phẩm chỉ tra O(N)) và lưu vào PRODUCT_RELATED để khởi động lại không phải tính lại.
+ * Khi chạy nhiều node, chỉ node giữ lease "related-products" mới tính lại: phần đọc chạy trong transaction
+ * readOnly (đi replica), chỉ phần ghi thay đổi đi primary. Các node còn lại định kỳ nạp lại PRODUCT_RELATED
+ * khi bảng đổi (baking.related.reload-interval).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelatedProductService {
+
+    private static final double CO_PURCHASE_WEIGHT = 0.6;
+    private static final double CATEGORY_WEIGHT = 0.25;
+    private static final double PRICE_WEIGHT = 0.15;
+
+    // Chỉ xét các sản phẩm gần giá nhất trong mỗi category lân cận
+    private static final int CATEGORY_CANDIDATES = 50;
+
+    private static final String LEASE_NAME = "related-products";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRelatedRepository productRelatedRepository;
+    private final SchedulerLeaseService schedulerLeases;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${baking.related.max-neighbors:12}")
+    private int maxNeighbors;
+
+    // Dài hơn rebuild-interval để node đang giữ lease gia hạn được ở mỗi lần tính lại
+    @Value("${baking.related.lease-ttl:PT2H}")
+    private Duration leaseTtl;
+
+    private volatile Map<Integer, int[]> neighbors = Map.of();
+
+    // Số dòng + computedAt mới nhất của PRODUCT_RELATED ở lần nạp gần nhất
+    private PersistedStamp loadedStamp;
+
+    private boolean leaseHeld;
+
+    /**
+     * Danh sách id sản phẩm liên quan đã xếp hạng; mảng rỗng nếu chưa tính cho sản phẩm này
+     */
+    public int[] getRelatedProductIds(Integer productId) {
+        return neighbors.getOrDefault(productId, new int[0]);
+    }
+
+    /**
+     * Nạp danh sách đã lưu khi khởi động; lần tính lại đầu tiên chạy sau baking.related.initial-delay
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void loadPersisted() {
+        reload();
+    }
+
+    /**
+     * Node không giữ lease nạp lại danh sách khi node giữ lease đã ghi thay đổi xuống PRODUCT_RELATED
+     */
+    @Scheduled(initialDelayString = "${baking.related.reload-interval:PT5M}",
+            fixedDelayString = "${baking.related.reload-interval:PT5M}")
+    public synchronized void reloadPersisted() {
+        if (leaseHeld) {
+            return;
+        }
+        readOnlyTransactions().executeWithoutResult(status -> {
+            if (!currentStamp().equals(loadedStamp)) {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Tính lại toàn bộ danh sách trên node giữ lease; chỉ ghi xuống DB những sản phẩm có danh sách thay đổi
+     */
+    @Scheduled(initialDelayString = "${baking.related.initial-delay:PT1M}",
+            fixedDelayString = "${baking.related.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        if (!schedulerLeases.acquire(LEASE_NAME, leaseTtl)) {
+            leaseHeld = false;
+            return;
+        }
+        if (!leaseHeld) {
+            // Vừa nhận lease từ node khác: so thay đổi với bản đang có trên primary, không phải bản nạp định kỳ
+            transactionTemplate.executeWithoutResult(status -> reload());
+            leaseHeld = true;
+        }
+
+        Map<Integer, int[]> computed = readOnlyTransactions().execute(status -> compute());
+        transactionTemplate.executeWithoutResult(status -> persistChanges(computed));
+        neighbors = computed;
+        log.info("Rebuilt related products for {} products", computed.size());
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        schedulerLeases.release(LEASE_NAME);
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private Map<Integer, int[]> compute() {
+        List<ProductFacetView> products = productRepository.findActiveProductFacets();
+        Map<Integer, ProductFacetView> productById = new HashMap<>();
+        for (ProductFacetView product : products) {
+            productById.put(product.getProductId(), product);
+        }
+
+        CategoryTree tree = new CategoryTree(categoryRepository.findAllParentLinks());
+        Map<Integer, List<ProductFacetView>> productsByCategory = groupByCategoryAndPrice(products);
+        Map<Integer, Map<Integer, Long>> coPurchases = loadCoPurchases(productById.keySet());
+
+        Map<Integer, int[]> computed = new HashMap<>();
+        for (ProductFacetView product : products) {
+            int[] related = topNeighbors(product, productById, tree, productsByCategory,
+                    coPurchases.getOrDefault(product.getProductId(), Map.of()));
+            if (related.length > 0) {
+                computed.put(product.getProductId(), related);
+            }
+        }
+        return computed;
+    }
+
+    // Gọi trong transaction của caller; stamp đọc trước để lần ghi xen giữa chỉ gây thêm một lần nạp lại
+    private void reload() {
+        PersistedStamp stamp = currentStamp();
+        Map<Integer, int[]> loaded = new HashMap<>();
+        for (ProductRelated related : productRelatedRepository.findAll()) {
+            loaded.put(related.getProductId(), related.getRelatedIds());
+        }
+        neighbors = loaded;
+        loadedStamp = stamp;
+        log.info("Loaded related products for {} products", loaded.size());
+    }
+
+    private PersistedStamp currentStamp() {
+        return new PersistedStamp(productRelatedRepository.count(), productRelatedRepository.findLatestComputedAt());
+    }
+
+    private TransactionTemplate readOnlyTransactions() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
+    private int[] topNeighbors(ProductFacetView product, Map<Integer, ProductFacetView> productById,
+                               CategoryTree tree, Map<Integer, List<ProductFacetView>> productsByCategory,
+                               Map<Integer, Long> coPurchased) {
+        // Ứng viên: sản phẩm từng mua kèm + sản phẩm gần giá trong category cùng/cha/con/anh em
+        Set<Integer> candidates = new LinkedHashSet<>(coPurchased.keySet());
+        for (Integer categoryId : tree.nearbyCategories(product.getCategoryId())) {
+            addClosestByPrice(productsByCategory.getOrDefault(categoryId, List.of()), product.getMinPrice(), candidates);
+        }
+        candidates.remove(product.getProductId());
+
+        long maxCoPurchase = coPurchased.values().stream().mapToLong(Long::longValue).max().orElse(0);
+        List<Integer> ranked = new ArrayList<>();
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Integer candidateId : candidates) {
+            ProductFacetView candidate = productById.get(candidateId);
+            if (candidate == null) {
+                continue;
+            }
+            double coScore = maxCoPurchase > 0 ? (double) coPurchased.getOrDefault(candidateId, 0L) / maxCoPurchase : 0;
+            double score = CO_PURCHASE_WEIGHT * coScore
+                    + CATEGORY_WEIGHT * tree.proximity(product.getCategoryId(), candidate.getCategoryId())
+                    + PRICE_WEIGHT * priceSimilarity(product.getMinPrice(), candidate.getMinPrice());
+            scores.put(candidateId, score);
+            ranked.add(candidateId);
+        }
+
+        ranked.sort(Comparator.comparingDouble((Integer id) -> scores.get(id)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return ranked.stream().limit(maxNeighbors).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void addClosestByPrice(List<ProductFacetView> sortedByPrice, BigDecimal price, Set<Integer> candidates) {
+        if (sortedByPrice.size() <= CATEGORY_CANDIDATES || price == null) {
+            sortedByPrice.stream().limit(CATEGORY_CANDIDATES).forEach(p -> candidates.add(p.getProductId()));
+            return;
+        }
+        // Tìm vị trí giá gần nhất rồi lấy một cửa sổ quanh vị trí đó
+        int low = 0;
+        int high = sortedByPrice.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            BigDecimal midPrice = sortedByPrice.get(mid).getMinPrice();
+            if (midPrice != null && midPrice.compareTo(price) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int from = Math.max(0, Math.min(low - CATEGORY_CANDIDATES / 2, sortedByPrice.size() - CATEGORY_CANDIDATES));
+        for (int i = from; i < from + CATEGORY_CANDIDATES; i++) {
+            candidates.add(sortedByPrice.get(i).getProductId());
+        }
+    }
+
+    private static double priceSimilarity(BigDecimal price, BigDecimal otherPrice) {
+        if (price == null || otherPrice == null) {
+            return 0;
+        }
+        BigDecimal max = price.max(otherPrice);
+        if (max.signum() <= 0) {
+            return 1;
+        }
+        return 1 - price.subtract(otherPrice).abs().doubleValue() / max.doubleValue();
+    }
+
+    private static Map<Integer, List<ProductFacetView>> groupByCategoryAndPrice(List<ProductFacetView> products) {
+        Map<Integer, List<ProductFacetView>> productsByCategory = new HashMap<>();
+        for (ProductFacetView product : products) {
+            productsByCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+        }
+        // Sản phẩm chưa có giá xếp cuối
+        Comparator<ProductFacetView> byPrice = Comparator.comparing(ProductFacetView::getMinPrice,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        productsByCategory.values().forEach(list -> list.sort(byPrice));
+        return productsByCategory;
+    }
+
+    private Map<Integer, Map<Integer, Long>> loadCoPurchases(Set<Integer> activeProductIds) {
+        Map<Integer, Map<Integer, Long>> coPurchases = new HashMap<>();
+        for (ProductPairCountView pair : cartItemRepository.countProductPairs()) {
+            if (!activeProductIds.contains(pair.getProductId()) || !activeProductIds.contains(pair.getOtherProductId())) {
+                continue;
+            }
+            coPurchases.computeIfAbsent(pair.getProductId(), id -> new HashMap<>())
+                    .put(pair.getOtherProductId(), pair.getCartCount());
+            coPurchases.computeIfAbsent(pair.getOtherProductId(), id -> new HashMap<>())
+                    .put(pair.getProductId(), pair.getCartCount());
+        }
+        return coPurchases;
+    }
+
+    private void persistChanges(Map<Integer, int[]> computed) {
+        Map<Integer, int[]> previous = neighbors;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<ProductRelated> changed = new ArrayList<>();
+        computed.forEach((productId, related) -> {
+            if (!Arrays.equals(previous.get(productId), related)) {
+                changed.add(new ProductRelated(productId, related, now));
+            }
+        });
+        List<Integer> removed = previous.keySet().stream()
+                .filter(productId -> !computed.containsKey(productId))
+                .toList();
+
+        productRelatedRepository.saveAll(changed);
+        productRelatedRepository.deleteAllByIdInBatch(removed);
+    }
+
+    private record PersistedStamp(long count, LocalDateTime latestComputedAt) {
+    }
+
+    /**
+     * Cây category dựng từ các cặp (id, parentId), dùng để đo khoảng cách giữa hai category
+     */
+    private static final class CategoryTree {
+
+        private final Map<Integer, Integer> parentById = new HashMap<>();
+        private final Map<Integer, List<Integer>> childrenById = new HashMap<>();
+
+        CategoryTree(List<CategoryParentView> links) {
+            for (CategoryParentView link : links) {
+                Integer id = link.getId().intValue();
+                Integer parentId = link.getParentId() != null ? link.getParentId().intValue() : null;
+                parentById.put(id, parentId);
+                if (parentId != null) {
+                    childrenById.computeIfAbsent(parentId, key -> new ArrayList<>()).add(id);
+                }
+            }
+        }
+
+        // Category hiện tại, cha, các con và các anh em
+        Set<Integer> nearbyCategories(Integer categoryId) {
+            Set<Integer> nearby = new LinkedHashSet<>();
+            nearby.add(categoryId);
+            nearby.addAll(childrenById.getOrDefault(categoryId, List.of()));
+            Integer parentId = parentById.get(categoryId);
+            if (parentId != null) {
+                nearby.add(parentId);
+                nearby.addAll(childrenById.getOrDefault(parentId, List.of()));
+            }
+            return nearby;
+        }
+
+        // 1 / (1 + số cạnh giữa hai category qua tổ tiên chung gần nhất); 0 nếu khác cây
+        double proximity(Integer categoryId, Integer otherCategoryId) {
+            List<Integer> ancestors = ancestors(categoryId);
+            List<Integer> otherAncestors = ancestors(otherCategoryId);
+            for (int depth = 0; depth < ancestors.size(); depth++) {
+                int otherDepth = otherAncestors.indexOf(ancestors.get(depth));
+                if (otherDepth >= 0) {
+                    return 1.0 / (1 + depth + otherDepth);
+                }
+            }
+            return 0;
+        }
+
+        private List<Integer> ancestors(Integer categoryId) {
+            List<Integer> ancestors = new ArrayList<>();
+            Set<Integer> visited = new HashSet<>();
+            for (Integer id = categoryId; id != null && visited.add(id); id = parentById.get(id)) {
+                ancestors.add(id);
+            }
+            return ancestors;
+        }
+    }
+}
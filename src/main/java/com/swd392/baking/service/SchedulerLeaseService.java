@@ -0,0 +1,66 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.repository.SchedulerLeaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease theo tên trên bảng scheduler_leases để một job định kỳ chỉ chạy trên một node. Node giữ lease gia hạn
+ * mỗi lần acquire; nếu node đó chết, node khác lấy được sau khi lease hết hạn. Đồng hồ các node cần đồng bộ
+ * với sai lệch nhỏ hơn ttl của lease.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+
+    // Hậu tố ngẫu nhiên để hai process cùng node-id (cùng HOSTNAME) không dùng chung lease
+    private final String ownerSuffix = UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${baking.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    /**
+     * Gia hạn hoặc lấy lease thêm ttl; false nếu node khác đang giữ
+     */
+    public boolean acquire(String name, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(ttl);
+        if (schedulerLeaseRepository.tryAcquire(name, owner(), now, lockedUntil) > 0) {
+            return true;
+        }
+        if (schedulerLeaseRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            return schedulerLeaseRepository.insert(name, owner(), lockedUntil) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Node khác vừa tạo dòng lease trước
+            return false;
+        }
+    }
+
+    /**
+     * Nhả lease (khi tắt node) để node khác tiếp quản ngay, không phải chờ hết hạn
+     */
+    public void release(String name) {
+        try {
+            schedulerLeaseRepository.release(name, owner(), LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Could not release lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    private String owner() {
+        return nodeId + ":" + ownerSuffix;
+    }
+}
@@ -0,0 +1,165 @@
+package com.swd392.baking.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache trong bộ nhớ chống dồn request (cache stampede):
+ * <ul>
+ *     <li>single-flight: nhiều request cùng key khi chưa có giá trị chỉ chạy loader một lần, các request còn lại chờ kết quả đó</li>
+ *     <li>stale-while-revalidate: hết ttl nhưng chưa quá stale-ttl thì trả giá trị cũ và nạp lại ở background</li>
+ *     <li>làm mới sớm theo xác suất (XFetch): gần hết ttl, mỗi request có xác suất tăng dần kích hoạt nạp lại
+ *     ở background, tỉ lệ với thời gian load lần trước, nên các key nóng không hết hạn cùng lúc</li>
+ * </ul>
+ * Loader lỗi (kể cả Error) thì lỗi được trả cho mọi request đang chờ và không được cache; nạp lại ở background lỗi thì giữ giá trị cũ.
+ */
+@Slf4j
+public class SingleFlightCache<K, V> {
+
+    private final String name;
+    private final Function<K, V> loader;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final double beta;
+    private final Executor refresher;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần invalidate; lần load bắt đầu trước đó thì lưu kết quả ở trạng thái đã hết hạn
+    private final AtomicLong generation = new AtomicLong();
+
+    public SingleFlightCache(String name, Function<K, V> loader, Duration ttl, Duration staleTtl,
+                             double beta, Executor refresher) {
+        this.name = name;
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleTtl.toNanos();
+        this.beta = beta;
+        this.refresher = refresher;
+    }
+
+    public V get(K key) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry == null || now - entry.staleUntil >= 0) {
+            return load(key);
+        }
+        if (now - entry.expiresAt >= 0 || shouldRefreshEarly(entry, now)) {
+            refreshAsync(key);
+        }
+        return entry.value;
+    }
+
+    /**
+     * Đánh dấu hết hạn: request kế tiếp vẫn nhận giá trị cũ nhưng kích hoạt nạp lại
+     */
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        long now = System.nanoTime();
+        entries.computeIfPresent(key, (k, entry) -> entry.expireAt(now));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        long now = System.nanoTime();
+        entries.replaceAll((k, entry) -> entry.expireAt(now));
+    }
+
+    /**
+     * Xóa hẳn, request kế tiếp phải chờ load (dùng khi dữ liệu cũ không được phép hiển thị nữa)
+     */
+    public void evict(K key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private V load(K key) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            long startGeneration = generation.get();
+            long start = System.nanoTime();
+            V value = loader.apply(key);
+            long now = System.nanoTime();
+            Entry<V> entry = new Entry<>(value, now - start, now + ttlNanos, now + ttlNanos + staleNanos);
+            entries.put(key, generation.get() == startGeneration ? entry : entry.expireAt(now));
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Cả Error (OutOfMemoryError, StackOverflowError...): không complete thì các request đang chờ treo mãi
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private void refreshAsync(K key) {
+        if (inFlight.containsKey(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key);
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} cache failed for key {}, serving stale value: {}",
+                            name, key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Refresh queue full, {} key {} will refresh on a later request", name, key);
+        }
+    }
+
+    // XFetch: now - delta * beta * ln(rand) >= expiresAt, ln(rand) < 0 nên càng gần hạn xác suất càng cao
+    private boolean shouldRefreshEarly(Entry<V> entry, long now) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        if (random == 0) {
+            return true;
+        }
+        return now - (long) (entry.loadNanos * beta * Math.log(random)) - entry.expiresAt >= 0;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long loadNanos, long expiresAt, long staleUntil) {
+
+        Entry<V> expireAt(long now) {
+            return now - expiresAt >= 0 ? this : new Entry<>(value, loadNanos, now, staleUntil);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+-- Schema cho các bảng / cột / index được thêm sau bản đầu (SQL Server). Mọi câu lệnh đều idempotent; câu lệnh
+-- trên bảng cũ bỏ qua khi bảng chưa có.
+-- Prod: chạy một lần ở bước deploy bằng scripts/migrate-schema.sh, trước khi khởi động các node (node prod để
+-- spring.sql.init.mode=never, dùng ddl-auto=none nên đây là nguồn schema duy nhất cho các đối tượng này).
+-- Dev: chạy mỗi lần khởi động qua spring.sql.init (trước Hibernate); database mới tinh thì Hibernate
+-- ddl-auto=update tạo bảng, lần khởi động sau script mới tạo unique index.
+-- Thêm entity / cột / index mới thì phải thêm vào file này.
+-- Mỗi câu lệnh phải nằm trên một dòng và không chứa dấu ; bên trong (script được tách theo ;).
+
+-- ==================== Bảng mới ====================
+
+IF OBJECT_ID('outbox_events', 'U') IS NULL CREATE TABLE outbox_events (id BIGINT IDENTITY NOT NULL, aggregate_type VARCHAR(50) NOT NULL, aggregate_id VARCHAR(64) NOT NULL, entity_type VARCHAR(50) NOT NULL, entity_id VARCHAR(64), change_type VARCHAR(20) NOT NULL CHECK (change_type IN ('CREATED', 'UPDATED', 'DELETED')), created_at DATETIME2(6) NOT NULL, processed_at DATETIME2(6), attempts INT NOT NULL CONSTRAINT df_outbox_events_attempts DEFAULT 0, PRIMARY KEY (id));
+
+IF OBJECT_ID('cache_invalidations', 'U') IS NULL CREATE TABLE cache_invalidations (id BIGINT IDENTITY NOT NULL, aggregate_type VARCHAR(50) NOT NULL, aggregate_id VARCHAR(64) NOT NULL, entity_type VARCHAR(50) NOT NULL, entity_id VARCHAR(64), change_type VARCHAR(20) NOT NULL CHECK (change_type IN ('CREATED', 'UPDATED', 'DELETED')), created_at DATETIME2(6) NOT NULL, PRIMARY KEY (id));
+
+IF OBJECT_ID('scheduler_leases', 'U') IS NULL CREATE TABLE scheduler_leases (name VARCHAR(50) NOT NULL, owner VARCHAR(100) NOT NULL, locked_until DATETIME2(6) NOT NULL, PRIMARY KEY (name));
+
+IF OBJECT_ID('product_sales_daily', 'U') IS NULL CREATE TABLE product_sales_daily (product_id INT NOT NULL, sale_date DATE NOT NULL, quantity BIGINT NOT NULL, PRIMARY KEY (product_id, sale_date));
+
+IF OBJECT_ID('category_closure', 'U') IS NULL CREATE TABLE category_closure (ancestor_id INT NOT NULL, descendant_id INT NOT NULL, depth INT NOT NULL, PRIMARY KEY (ancestor_id, descendant_id));
+
+IF OBJECT_ID('product_related', 'U') IS NULL CREATE TABLE product_related (product_id INT NOT NULL, related_ids VARBINARY(1024) NOT NULL, computed_at DATETIME2(6) NOT NULL, PRIMARY KEY (product_id));
+
+IF OBJECT_ID('replication_heartbeat', 'U') IS NULL CREATE TABLE replication_heartbeat (id INT NOT NULL, beat_millis BIGINT NOT NULL, PRIMARY KEY (id));
+
+-- ==================== Cột mới trên bảng cũ ====================
+
+IF OBJECT_ID('products', 'U') IS NOT NULL AND COL_LENGTH('products', 'reserved_quantity') IS NULL ALTER TABLE products ADD reserved_quantity INT NOT NULL CONSTRAINT df_products_reserved_quantity DEFAULT 0;
+
+IF OBJECT_ID('carts', 'U') IS NOT NULL AND COL_LENGTH('carts', 'version') IS NULL ALTER TABLE carts ADD version BIGINT NOT NULL CONSTRAINT df_carts_version DEFAULT 0;
+
+IF OBJECT_ID('cart_items', 'U') IS NOT NULL AND COL_LENGTH('cart_items', 'version') IS NULL ALTER TABLE cart_items ADD version BIGINT NOT NULL CONSTRAINT df_cart_items_version DEFAULT 0;
+
+-- ==================== Index ====================
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_outbox_events_pending' AND object_id = OBJECT_ID('outbox_events')) CREATE INDEX idx_outbox_events_pending ON outbox_events (processed_at, id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_cache_invalidations_created' AND object_id = OBJECT_ID('cache_invalidations')) CREATE INDEX idx_cache_invalidations_created ON cache_invalidations (created_at);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_product_sales_daily_date' AND object_id = OBJECT_ID('product_sales_daily')) CREATE INDEX idx_product_sales_daily_date ON product_sales_daily (sale_date);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_category_closure_descendant' AND object_id = OBJECT_ID('category_closure')) CREATE INDEX idx_category_closure_descendant ON category_closure (descendant_id);
+
+IF OBJECT_ID('products', 'U') IS NOT NULL AND NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_category_active' AND object_id = OBJECT_ID('products')) CREATE INDEX idx_products_category_active ON products (category_id, is_active);
+
+IF OBJECT_ID('products_size', 'U') IS NOT NULL AND NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_size_promotion_start' AND object_id = OBJECT_ID('products_size')) CREATE INDEX idx_products_size_promotion_start ON products_size (promotion_start);
+
+IF OBJECT_ID('products_size', 'U') IS NOT NULL AND NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_size_promotion_end' AND object_id = OBJECT_ID('products_size')) CREATE INDEX idx_products_size_promotion_end ON products_size (promotion_end);
+
+-- Hibernate (ddl-auto=update) tạo unique key trên cột nullable thành filtered index "WHERE ... IS NOT NULL",
+-- không chặn được gì khi một cột luôn NULL (giỏ khách không có user_id, giỏ user không có session_id).
+-- Dùng unique index thường để NULL được coi là bằng nhau, giống H2 trong test.
+-- Tạo index sẽ lỗi nếu dữ liệu cũ đang có giỏ / dòng giỏ trùng: gộp các bản trùng trước khi chạy migration.
+
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'uk_carts_owner' AND object_id = OBJECT_ID('carts') AND has_filter = 1) DROP INDEX uk_carts_owner ON carts;
+
+IF OBJECT_ID('carts', 'U') IS NOT NULL AND NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'uk_carts_owner' AND object_id = OBJECT_ID('carts')) CREATE UNIQUE INDEX uk_carts_owner ON carts (user_id, session_id);
+
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'uk_cart_items_line' AND object_id = OBJECT_ID('cart_items') AND has_filter = 1) DROP INDEX uk_cart_items_line ON cart_items;
+
+IF OBJECT_ID('cart_items', 'U') IS NOT NULL AND NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'uk_cart_items_line' AND object_id = OBJECT_ID('cart_items')) CREATE UNIQUE INDEX uk_cart_items_line ON cart_items (cart_id, product_id, size_selected, price_id);
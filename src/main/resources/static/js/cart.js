@@ -9,6 +9,7 @@ const CartModule = (function() {
     // Cấu hình
     const CONFIG = {
         apiEndpoint: '/api/cart',
+        eventsEndpoint: '/api/cart/events',
         selectors: {
             cartTotal: '.cart-total',
             cartBadge: '.badge.bg-primary.rounded-pill',
@@ -21,6 +22,9 @@ const CartModule = (function() {
         }
     };
 
+    // Trạng thái giỏ hàng mới nhất (từ response hoặc SSE), dùng để không phải fetch lại khi mở offcanvas
+    let lastCart = null;
+
     /**
      * Hiển thị thông báo toast
      */
@@ -61,6 +65,10 @@ const CartModule = (function() {
      * Cập nhật UI header (tổng tiền và số lượng items)
      */
     function updateHeaderCart(cart) {
+        if (cart && cart.items) {
+            lastCart = cart;
+        }
+
         // Cập nhật tổng tiền
         $(CONFIG.selectors.cartTotal).text(formatCurrency(cart.totalAmount || 0));
 
@@ -281,7 +289,7 @@ const CartModule = (function() {
             }
 
             showToast(result.message);
-            updateHeaderCart({ totalAmount: 0, totalItems: 0 });
+            updateHeaderCart({ items: [], totalAmount: 0, totalItems: 0 });
             renderCartItems({ items: [] });
         } catch (error) {
             console.error('Error clearing cart:', error);
@@ -336,12 +344,15 @@ const CartModule = (function() {
     function init() {
         // Load cart KHI MỞ offcanvas (không tự động load khi vào trang)
         $(CONFIG.selectors.offcanvasCart).on('show.bs.offcanvas', async function() {
-            const cart = await fetchCart();
+            const cart = lastCart || await fetchCart();
             if (cart) {
                 renderCartItems(cart);
             }
         });
 
+        // Nhận thay đổi giỏ hàng / giá qua SSE thay vì polling
+        subscribeCartEvents();
+
         // Chỉ cập nhật header (không load full cart)
         fetchCartSummary();
 
@@ -361,12 +372,46 @@ const CartModule = (function() {
         });
     }
 
+    /**
+     * Đăng ký kênh SSE: server đẩy trạng thái giỏ hàng khi thay đổi (từ tab khác)
+     * và giá mới khi khuyến mãi của sản phẩm trong giỏ bắt đầu / kết thúc
+     */
+    function subscribeCartEvents() {
+        if (!window.EventSource) return;
+
+        const source = new EventSource(CONFIG.eventsEndpoint);
+
+        source.addEventListener('cart', function(event) {
+            const cart = JSON.parse(event.data);
+            updateHeaderCart(cart);
+            if (isCartOpen()) {
+                renderCartItems(cart);
+            }
+        });
+
+        // Server đã cập nhật giá các dòng trong giỏ, nên tải lại giỏ để header và tổng tiền khớp giá mới
+        source.addEventListener('price', async function(event) {
+            const change = JSON.parse(event.data);
+            lastCart = null;
+            showToast(`Giá của ${change.productName} (${change.size}) đã thay đổi: ${formatCurrency(change.effectivePrice)}`);
+            const cart = await fetchCart();
+            if (cart && isCartOpen()) {
+                renderCartItems(cart);
+            }
+        });
+        // EventSource tự kết nối lại khi mất kết nối
+    }
+
+    function isCartOpen() {
+        return $(CONFIG.selectors.offcanvasCart).hasClass('show');
+    }
+
     /**
      * Chỉ lấy summary để update header (nhẹ hơn)
      */
     async function fetchCartSummary() {
         try {
-            const response = await fetch(CONFIG.apiEndpoint);
+            const response = await fetch(`${CONFIG.apiEndpoint}/summary`);
             if (!response.ok) return;
 
             const cart = await response.json();
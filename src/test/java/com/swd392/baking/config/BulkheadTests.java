@@ -0,0 +1,88 @@
+package com.swd392.baking.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BulkheadTests {
+
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+
+    @Test
+    void slowRequestsBackOffOncePerRoundDownToMinLimit() {
+        Bulkhead bulkhead = new Bulkhead("test", settings(2, 10, 10, 0.5, true));
+        long start = System.nanoTime() + 1;
+        for (int i = 0; i < 4; i++) {
+            assertNull(bulkhead.acquire());
+        }
+
+        // Cả 4 request bắt đầu trước lần giảm đầu tiên: chỉ giảm một lần
+        for (int i = 0; i < 4; i++) {
+            bulkhead.release(start, start + SLOW);
+        }
+        assertEquals(5.0, bulkhead.getLimit());
+
+        long next = start + 2 * SLOW;
+        for (int round = 0; round < 3; round++) {
+            assertNull(bulkhead.acquire());
+            bulkhead.release(next, next + SLOW);
+            next += 2 * SLOW;
+        }
+        assertEquals(2.0, bulkhead.getLimit());
+    }
+
+    @Test
+    void fastSaturatedRequestsGrowLimitUpToMaxLimit() {
+        Bulkhead bulkhead = new Bulkhead("test", settings(1, 4, 2, 0.9, true));
+        long start = System.nanoTime();
+        for (int round = 0; round < 50; round++) {
+            int slots = (int) bulkhead.getLimit();
+            for (int i = 0; i < slots; i++) {
+                assertNull(bulkhead.acquire());
+            }
+            for (int i = 0; i < slots; i++) {
+                bulkhead.release(start, start + FAST);
+            }
+        }
+        assertEquals(4.0, bulkhead.getLimit());
+    }
+
+    @Test
+    void fixedBulkheadIgnoresLatency() {
+        Bulkhead bulkhead = new Bulkhead("test", settings(2, 2, 2, 0.5, false));
+        long start = System.nanoTime() + 1;
+        assertNull(bulkhead.acquire());
+        bulkhead.release(start, start + SLOW);
+        assertEquals(2.0, bulkhead.getLimit());
+    }
+
+    @Test
+    void requestsOverLimitAreRejected() {
+        Bulkhead.Settings settings = settings(1, 1, 1, 0.9, true);
+        Bulkhead bulkhead = new Bulkhead("test", settings);
+        assertNull(bulkhead.acquire());
+        assertEquals(Bulkhead.Rejection.QUEUE_FULL, bulkhead.acquire());
+
+        settings.setMaxQueue(1);
+        settings.setQueueTimeout(Duration.ofMillis(50));
+        assertEquals(Bulkhead.Rejection.TIMEOUT, bulkhead.acquire());
+        assertEquals(0, bulkhead.getWaiting());
+        assertEquals(1, bulkhead.getInFlight());
+    }
+
+    private static Bulkhead.Settings settings(int minLimit, int maxLimit, int initialLimit, double backoffRatio,
+                                              boolean adaptive) {
+        Bulkhead.Settings settings = new Bulkhead.Settings();
+        settings.setMinLimit(minLimit);
+        settings.setMaxLimit(maxLimit);
+        settings.setInitialLimit(initialLimit);
+        settings.setLatencyThreshold(Duration.ofMillis(100));
+        settings.setBackoffRatio(backoffRatio);
+        settings.setAdaptive(adaptive);
+        return settings;
+    }
+}
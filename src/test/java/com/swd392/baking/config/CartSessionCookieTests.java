@@ -0,0 +1,85 @@
+package com.swd392.baking.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartSessionCookieTests {
+
+    @Test
+    void blankSecretFailsOutsideDevAndTest() {
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+        assertThrows(IllegalStateException.class, () -> new CartSessionCookie(" ", Duration.ofDays(30), true, prod));
+
+        MockEnvironment replica = new MockEnvironment();
+        replica.setActiveProfiles("prod", "replica");
+        assertDoesNotThrow(() -> new CartSessionCookie("shared-secret", Duration.ofDays(30), true, replica));
+    }
+
+    @Test
+    void blankSecretUsesRandomKeyInDev() {
+        assertDoesNotThrow(() -> new CartSessionCookie("", Duration.ofDays(30), false, new MockEnvironment()));
+
+        MockEnvironment test = new MockEnvironment();
+        test.setActiveProfiles("test");
+        assertDoesNotThrow(() -> new CartSessionCookie("", Duration.ofDays(30), false, test));
+    }
+
+    @Test
+    void lastWriteTravelsInSignedCookie() {
+        CartSessionCookie cookie = new CartSessionCookie("shared-secret", Duration.ofDays(30), false,
+                new MockEnvironment());
+        MockHttpServletResponse created = new MockHttpServletResponse();
+        String sessionId = cookie.getOrCreate(new MockHttpServletRequest(), created);
+
+        // Cookie chưa có thời điểm ghi (định dạng cũ) vẫn hợp lệ
+        MockHttpServletRequest plain = requestWith(lastCookieValue(created));
+        assertEquals(sessionId, cookie.resolve(plain));
+        assertEquals(0, cookie.resolveLastWrite(plain));
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        long before = System.currentTimeMillis();
+        cookie.markWritten(plain, written);
+        MockHttpServletRequest afterWrite = requestWith(lastCookieValue(written));
+        assertEquals(sessionId, cookie.resolve(afterWrite));
+        assertTrue(cookie.resolveLastWrite(afterWrite) >= before);
+
+        // Node khác (cùng secret) đọc được, và getOrCreate giữ nguyên thời điểm ghi
+        CartSessionCookie otherNode = new CartSessionCookie("shared-secret", Duration.ofDays(30), false,
+                new MockEnvironment());
+        MockHttpServletResponse renewed = new MockHttpServletResponse();
+        otherNode.getOrCreate(afterWrite, renewed);
+        assertEquals(cookie.resolveLastWrite(afterWrite),
+                otherNode.resolveLastWrite(requestWith(lastCookieValue(renewed))));
+
+        // Sửa thời điểm ghi thì chữ ký không còn khớp
+        String token = lastCookieValue(written);
+        char tampered = token.charAt(30) == 'A' ? 'B' : 'A';
+        assertNull(cookie.resolve(requestWith(token.substring(0, 30) + tampered + token.substring(31))));
+    }
+
+    private static String lastCookieValue(MockHttpServletResponse response) {
+        List<String> setCookies = response.getHeaders(HttpHeaders.SET_COOKIE);
+        String setCookie = setCookies.get(setCookies.size() - 1);
+        return setCookie.substring("CART=".length(), setCookie.indexOf(';'));
+    }
+
+    private static MockHttpServletRequest requestWith(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("CART", token));
+        return request;
+    }
+}
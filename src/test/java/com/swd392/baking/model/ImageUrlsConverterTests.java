@@ -0,0 +1,44 @@
+package com.swd392.baking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageUrlsConverterTests {
+
+    private final ImageUrlsConverter converter = new ImageUrlsConverter();
+
+    @Test
+    void parsesJsonArray() {
+        assertEquals(List.of("a.png", "b.png"), converter.convertToEntityAttribute("[\"a.png\",\"b.png\"]"));
+    }
+
+    @Test
+    void skipsNullElements() {
+        assertEquals(List.of("a.png"), converter.convertToEntityAttribute("[\"a.png\", null]"));
+        assertEquals(List.of(), converter.convertToEntityAttribute("null"));
+    }
+
+    @Test
+    void emptyColumnIsEmptyList() {
+        assertEquals(List.of(), converter.convertToEntityAttribute(null));
+        assertEquals(List.of(), converter.convertToEntityAttribute("  "));
+    }
+
+    @Test
+    void fallsBackToLegacyFormat() {
+        assertEquals(List.of("http://x/a.png", "http://x/b.png"),
+                converter.convertToEntityAttribute("[http://x/a.png, http://x/b.png]"));
+        assertEquals(List.of("a.png", "b.png"), converter.convertToEntityAttribute("a.png,b.png,"));
+    }
+
+    @Test
+    void roundTripsThroughColumn() {
+        List<String> urls = List.of("a.png", "b.png");
+        assertEquals(urls, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(urls)));
+        assertNull(converter.convertToDatabaseColumn(List.of()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.swd392.baking.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh tổng giỏ hàng và khoảng giá sản phẩm tính bằng BigDecimal (cách cũ) với Money.
+ * Cột gc.alloc.rate.norm là số byte cấp phát mỗi lần gọi. Chạy: ./scripts/money-benchmark.sh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"5", "50"})
+    private int lines;
+
+    private List<CartItem> items;
+    private List<ProductSize> sizes;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        items = new ArrayList<>(lines);
+        sizes = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(1_000, 500_000) * 100, 2);
+            items.add(CartItem.builder().price(price).quantity(random.nextInt(1, 10)).build());
+
+            ProductSize size = new ProductSize();
+            size.setRegularPrice(price);
+            if (i % 2 == 0) {
+                size.setPromotionPrice(BigDecimal.valueOf(price.movePointRight(2).longValue() * 9 / 10, 2));
+                size.setPromotionStart(LocalDateTime.now().minusDays(1));
+                size.setPromotionEnd(LocalDateTime.now().plusDays(1));
+            }
+            sizes.add(size);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal cartTotalBigDecimal() {
+        return items.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public long cartTotalMoney() {
+        long total = Money.ZERO;
+        for (CartItem item : items) {
+            total = Money.plus(total, item.getSubTotalMinor());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal priceRangeBigDecimal() {
+        BigDecimal min = sizes.stream().map(ProductSize::getEffectivePrice).min(BigDecimal::compareTo)
+                .orElse(BigDecimal.ZERO);
+        BigDecimal max = sizes.stream().map(ProductSize::getEffectivePrice).max(BigDecimal::compareTo)
+                .orElse(BigDecimal.ZERO);
+        return min.add(max);
+    }
+
+    @Benchmark
+    public long priceRangeMoney() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (ProductSize size : sizes) {
+            long price = size.getEffectivePriceMinor();
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        return min + max;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.Application;
+import com.swd392.baking.model.AddToCartRequest;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.OutboxEventRepository;
+import com.swd392.baking.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hai application context dùng chung một database H2 và transport in-memory, đóng vai hai node
+ */
+class CacheInvalidationConvergenceTests {
+
+    private static final long TIMEOUT_MILLIS = 15_000;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a", "create");
+        nodeB = startNode("node-b", "none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void productChangeOnOneNodeConvergesOnBoth() {
+        ProductRepository productRepository = nodeA.getBean(ProductRepository.class);
+        Product product = new Product();
+        product.setProductName("Bột mì trước");
+        product.setCategoryId(1);
+        product.setStockQuantity(100);
+        ProductSize size = new ProductSize();
+        size.setSize("1kg");
+        size.setSku("CONVERGE-1");
+        size.setRegularPrice(new BigDecimal("25000"));
+        product.addProductSize(size);
+        productRepository.save(product);
+        Integer productId = product.getProductId();
+
+        awaitProductName(nodeA, productId, "Bột mì trước");
+        awaitProductName(nodeB, productId, "Bột mì trước");
+
+        Product saved = productRepository.findById(productId).orElseThrow();
+        saved.setProductName("Bột mì sau");
+        productRepository.save(saved);
+
+        awaitProductName(nodeA, productId, "Bột mì sau");
+        awaitProductName(nodeB, productId, "Bột mì sau");
+
+        // Chỉ node giữ lease relay phát, nên mỗi node nhận đúng một bản của mỗi event được phát
+        OutboxEventRepository outboxEventRepository = nodeA.getBean(OutboxEventRepository.class);
+        await(() -> outboxEventRepository.findAll().stream().allMatch(event -> event.getProcessedAt() != null));
+        Set<String> broadcast = nodeA.getBean(CacheInvalidationBus.class).aggregateTypes();
+        long broadcastEvents = outboxEventRepository.findAll().stream()
+                .filter(event -> broadcast.contains(event.getAggregateType()))
+                .count();
+        assertTrue(broadcastEvents > 0);
+        assertEquals(broadcastEvents, received(nodeA));
+        assertEquals(broadcastEvents, received(nodeB));
+        assertEquals(nodeA.getBean(CacheInvalidationBus.class).getAppliedVersion(),
+                nodeB.getBean(CacheInvalidationBus.class).getAppliedVersion());
+    }
+
+    @Test
+    void cartChangeOnOneNodeRefreshesSummaryOnOther() {
+        ProductRepository productRepository = nodeA.getBean(ProductRepository.class);
+        Product product = new Product();
+        product.setProductName("Bơ lạt");
+        product.setCategoryId(1);
+        product.setStockQuantity(10);
+        ProductSize size = new ProductSize();
+        size.setSize("500g");
+        size.setSku("CONVERGE-CART-1");
+        size.setRegularPrice(new BigDecimal("40000"));
+        product.addProductSize(size);
+        productRepository.save(product);
+
+        String sessionId = UUID.randomUUID().toString();
+        CartService cartOnA = nodeA.getBean(CartService.class);
+        CartService cartOnB = nodeB.getBean(CartService.class);
+        // Node B giữ tóm tắt giỏ rỗng trong bộ nhớ trước khi node A ghi
+        assertEquals(0, cartOnB.getCartSummary(null, sessionId).getTotalItems());
+
+        cartOnA.addToCart(AddToCartRequest.builder()
+                .productId(product.getProductId())
+                .priceId(product.getProductSizes().get(0).getPriceId())
+                .sizeSelected("500g")
+                .quantity(2)
+                .build(), null, sessionId);
+
+        await(() -> cartOnB.getCartSummary(null, sessionId).getTotalItems() == 2);
+        assertEquals(0, new BigDecimal("80000").compareTo(cartOnB.getCartSummary(null, sessionId).getTotalAmount()));
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private static ConfigurableApplicationContext startNode(String nodeId, String ddlAuto) {
+        return new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:invalidation-convergence;MODE=MSSQLServer;DATABASE_TO_UPPER=false"
+                        + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--baking.node-id=" + nodeId,
+                "--baking.invalidation.transport=in-memory",
+                "--baking.outbox.poll-interval=PT0.1S",
+                "--baking.catalog.cache.ttl=PT1H",
+                "--baking.catalog.cache.stale-ttl=PT1H");
+    }
+
+    private static void awaitProductName(ConfigurableApplicationContext node, Integer productId, String name) {
+        CatalogCacheService catalogCacheService = node.getBean(CatalogCacheService.class);
+        await(() -> name.equals(catalogCacheService.getProductById(productId).getProductName()));
+    }
+
+    private static double received(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).get("baking.cache.invalidation.received").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within timeout");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
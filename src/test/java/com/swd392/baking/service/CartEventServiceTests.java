@@ -0,0 +1,136 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.config.CartSessionCookie;
+import com.swd392.baking.model.CartDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart-events;MODE=MSSQLServer;DATABASE_TO_UPPER=false",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "baking.cart.events.max-queue=1000",
+        "baking.cart.events.send-timeout=PT1H"
+})
+class CartEventServiceTests {
+
+    // Nhiều hơn số luồng gửi của bản cũ (4) để chắc không client nào bị chặn chung
+    private static final int STALLED_CLIENTS = 6;
+    private static final int LARGE_EVENTS = 40;
+    private static final int LARGE_EVENT_CHARS = 256 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CartEventService cartEventService;
+
+    @Autowired
+    private CartSessionCookie cartSessionCookie;
+
+    @Test
+    void stalledSubscriberDoesNotDelayOthers() throws Exception {
+        List<Socket> stalled = new ArrayList<>();
+        List<String> stalledSessions = new ArrayList<>();
+        for (int i = 0; i < STALLED_CLIENTS; i++) {
+            String[] session = newSession();
+            Socket socket = new Socket();
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("localhost", port));
+            openEvents(socket, session[1]);
+            readUntil(socket.getInputStream(), ": connected");
+            // Từ đây không đọc nữa: socket đầy thì server không ghi được
+            stalled.add(socket);
+            stalledSessions.add(session[0]);
+        }
+
+        String[] healthySession = newSession();
+        try (Socket healthy = new Socket("localhost", port)) {
+            openEvents(healthy, healthySession[1]);
+            readUntil(healthy.getInputStream(), ": connected");
+
+            CartDTO large = cart("x".repeat(LARGE_EVENT_CHARS));
+            long start = System.nanoTime();
+            for (int i = 0; i < LARGE_EVENTS; i++) {
+                for (String sessionId : stalledSessions) {
+                    cartEventService.publishCart(null, sessionId, large);
+                }
+            }
+            // Người phát không bị chặn dù socket của các client treo đã đầy
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+
+            cartEventService.publishCart(null, healthySession[0], cart("healthy"));
+            healthy.setSoTimeout(5_000);
+            String received = readUntil(healthy.getInputStream(), "\"sessionId\":\"healthy\"");
+            assertTrue(received.contains("event: cart"));
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    // {sessionId, giá trị cookie CART}
+    private String[] newSession() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String sessionId = cartSessionCookie.getOrCreate(new MockHttpServletRequest(), response);
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        String token = setCookie.substring("CART=".length(), setCookie.indexOf(';'));
+        return new String[]{sessionId, token};
+    }
+
+    private static void openEvents(Socket socket, String token) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET /api/cart/events HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Accept: text/event-stream\r\n"
+                + "Cookie: CART=" + token + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readUntil(InputStream in, String marker) throws IOException {
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!read.toString(StandardCharsets.UTF_8).contains(marker)) {
+            int n = in.read(buffer);
+            if (n < 0) {
+                throw new IOException("Connection closed before " + marker);
+            }
+            read.write(buffer, 0, n);
+        }
+        return read.toString(StandardCharsets.UTF_8);
+    }
+
+    private static CartDTO cart(String sessionId) {
+        return CartDTO.builder()
+                .sessionId(sessionId)
+                .items(List.of())
+                .totalAmount(BigDecimal.ZERO)
+                .totalItems(0)
+                .build();
+    }
+}
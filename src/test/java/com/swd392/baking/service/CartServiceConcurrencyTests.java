@@ -0,0 +1,145 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.model.AddToCartRequest;
+import com.swd392.baking.model.CartDTO;
+import com.swd392.baking.model.CartSummaryDTO;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.CartRepository;
+import com.swd392.baking.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart-concurrency;MODE=MSSQLServer;DATABASE_TO_UPPER=false;LOCK_TIMEOUT=10000",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false"
+})
+class CartServiceConcurrencyTests {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 25;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Test
+    void concurrentAddsToSameLineLoseNoUpdates() throws Exception {
+        AddToCartRequest request = saveProduct("FLOUR-1KG");
+        String sessionId = "stress-session";
+
+        // Tạo giỏ hàng trước, sau đó nhiều luồng cùng cộng dồn vào một dòng
+        cartService.addToCart(request, null, sessionId);
+        cartService.getCartSummary(null, sessionId);
+        AtomicInteger succeeded = new AtomicInteger(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    try {
+                        cartService.addToCart(request, null, sessionId);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Hết số lần retry: request thất bại hẳn, không được tính vào số lượng
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        CartDTO cart = cartService.getCart(null, sessionId);
+        Product reloaded = productRepository.findById(request.getProductId()).orElseThrow();
+
+        assertEquals(1, cart.getItems().size());
+        assertEquals(succeeded.get(), cart.getItems().get(0).getQuantity());
+        assertEquals(succeeded.get(), reloaded.getReservedQuantity());
+
+        // Bộ đếm tóm tắt được cộng dồn theo delta phải khớp với dữ liệu trong DB
+        CartSummaryDTO summary = cartService.getCartSummary(null, sessionId);
+        assertEquals(cart.getTotalItems(), summary.getTotalItems());
+        assertEquals(0, cart.getTotalAmount().compareTo(summary.getTotalAmount()));
+        assertTrue(succeeded.get() > THREADS * ADDS_PER_THREAD / 2);
+    }
+
+    @Test
+    void concurrentFirstAddsCreateOneCart() throws Exception {
+        AddToCartRequest request = saveProduct("SUGAR-1KG");
+        String sessionId = "double-click-session";
+
+        // Chưa có giỏ hàng: mọi luồng cùng thêm lần đầu, như double-click hoặc nhiều tab
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cartService.addToCart(request, null, sessionId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        CartDTO cart = cartService.getCart(null, sessionId);
+        Product reloaded = productRepository.findById(request.getProductId()).orElseThrow();
+
+        assertEquals(1, cartRepository.countBySessionId(sessionId));
+        assertEquals(1, cart.getItems().size());
+        assertEquals(THREADS, cart.getItems().get(0).getQuantity());
+        assertEquals(THREADS, reloaded.getReservedQuantity());
+    }
+
+    private AddToCartRequest saveProduct(String sku) {
+        Product product = new Product();
+        product.setProductName("Bột mì " + sku);
+        product.setCategoryId(1);
+        product.setStockQuantity(10_000);
+        ProductSize size = new ProductSize();
+        size.setSize("1kg");
+        size.setSku(sku);
+        size.setRegularPrice(new BigDecimal("25000"));
+        product.addProductSize(size);
+        productRepository.save(product);
+
+        return AddToCartRequest.builder()
+                .productId(product.getProductId())
+                .priceId(size.getPriceId())
+                .sizeSelected("1kg")
+                .quantity(1)
+                .build();
+    }
+}
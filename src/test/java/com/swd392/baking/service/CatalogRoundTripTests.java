@@ -0,0 +1,143 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.model.CatalogImportResult;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.OutboxEventRepository;
+import com.swd392.baking.repository.ProductRepository;
+import com.swd392.baking.repository.ProductSizeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog-round-trip;MODE=MSSQLServer;DATABASE_TO_UPPER=false",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false"
+})
+class CatalogRoundTripTests {
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSizeRepository productSizeRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    void reimportingExportKeepsPromotionWindow() throws Exception {
+        ProductSize size = saveProductWithPromotion("RT-EXPORT");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        catalogExportService.exportCatalog(CatalogExportService.Format.CSV, null, out);
+        CatalogImportResult result = importCsv(out.toString(StandardCharsets.UTF_8));
+
+        assertEquals(0, result.getFailedRows());
+        assertPromotionUnchanged(size);
+    }
+
+    @Test
+    void fileWithoutPromotionColumnsKeepsPromotion() throws Exception {
+        ProductSize size = saveProductWithPromotion("RT-PRICE-ONLY");
+
+        CatalogImportResult result = importCsv("product_id,sku,size,regular_price\n"
+                + size.getProduct().getProductId() + ",RT-PRICE-ONLY,1kg,30000\n");
+
+        assertEquals(0, result.getFailedRows());
+        ProductSize reloaded = productSizeRepository.findById(size.getPriceId()).orElseThrow();
+        assertEquals(0, new BigDecimal("30000").compareTo(reloaded.getRegularPrice()));
+        assertPromotionUnchanged(size);
+    }
+
+    @Test
+    void emptyPromotionColumnsClearPromotion() throws Exception {
+        ProductSize size = saveProductWithPromotion("RT-CLEAR");
+
+        CatalogImportResult result = importCsv("product_id,sku,size,regular_price,promotion_price,promotion_start,"
+                + "promotion_end\n" + size.getProduct().getProductId() + ",RT-CLEAR,1kg,25000,,,\n");
+
+        assertEquals(0, result.getFailedRows());
+        ProductSize reloaded = productSizeRepository.findById(size.getPriceId()).orElseThrow();
+        assertEquals(null, reloaded.getPromotionPrice());
+        assertEquals(null, reloaded.getPromotionStart());
+        assertEquals(null, reloaded.getPromotionEnd());
+    }
+
+    @Test
+    void stockBelowReservedIsReportedAndOtherRowsStillImport() throws Exception {
+        ProductSize reserved = saveProductWithPromotion("RT-RESERVED");
+        Product product = productRepository.findById(reserved.getProduct().getProductId()).orElseThrow();
+        product.setReservedQuantity(10);
+        productRepository.save(product);
+        Integer productId = product.getProductId();
+        long outboxBefore = outboxEventRepository.count();
+
+        // Lỗi ở dòng 2 làm cả chunk chạy lại từng dòng, dòng 1 và 3 vẫn vào
+        CatalogImportResult result = importCsv("product_id,sku,size,regular_price,stock_quantity\n"
+                + productId + ",RT-RESERVED,1kg,26000,50\n"
+                + productId + ",RT-RESERVED,1kg,26000,5\n"
+                + productId + ",RT-RESERVED-2,2kg,50000,\n");
+
+        assertEquals(2, result.getImportedRows());
+        assertEquals(1, result.getFailedRows());
+        assertEquals(2, result.getErrors().get(0).getRowNumber());
+        assertTrue(result.getErrors().get(0).getMessage().contains("reserved"));
+        assertEquals(50, productRepository.findById(productId).orElseThrow().getStockQuantity());
+
+        // Một dòng outbox cho mỗi sản phẩm của cả lần import (không theo từng dòng chạy lại), ghi sau chunk cuối
+        assertEquals(outboxBefore + 1, outboxEventRepository.count());
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private ProductSize saveProductWithPromotion(String sku) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Product product = new Product();
+        product.setProductName("Bột mì " + sku);
+        product.setCategoryId(1);
+        product.setStockQuantity(100);
+        ProductSize size = new ProductSize();
+        size.setSize("1kg");
+        size.setSku(sku);
+        size.setRegularPrice(new BigDecimal("25000"));
+        size.setPromotionPrice(new BigDecimal("20000"));
+        size.setPromotionStart(now.minusDays(1));
+        size.setPromotionEnd(now.plusDays(1));
+        product.addProductSize(size);
+        productRepository.save(product);
+        return size;
+    }
+
+    private CatalogImportResult importCsv(String csv) throws Exception {
+        return catalogImportService.importCatalog(CatalogImportService.Format.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertPromotionUnchanged(ProductSize expected) {
+        ProductSize reloaded = productSizeRepository.findById(expected.getPriceId()).orElseThrow();
+        assertEquals(0, expected.getPromotionPrice().compareTo(reloaded.getPromotionPrice()));
+        assertEquals(expected.getPromotionStart(), reloaded.getPromotionStart());
+        assertEquals(expected.getPromotionEnd(), reloaded.getPromotionEnd());
+    }
+}
@@ -0,0 +1,183 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.model.FacetResultDTO;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.repository.CategoryParentView;
+import com.swd392.baking.repository.CategoryRepository;
+import com.swd392.baking.repository.ProductFacetView;
+import com.swd392.baking.repository.ProductRepository;
+import com.swd392.baking.repository.ProductSizeRepository;
+import com.swd392.baking.repository.ProductSizeValueView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index facet trên repository giả: cây category 1 > 2 và 3; sản phẩm 10, 11 thuộc 2, sản phẩm 12 thuộc 3
+ */
+class FacetServiceTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSizeRepository productSizeRepository = mock(ProductSizeRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+
+    private FacetService facetService;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryRepository.findAllParentLinks()).thenReturn(List.of(
+                new Link(1L, null), new Link(2L, 1L), new Link(3L, null)));
+        when(productRepository.findActiveProductFacets()).thenReturn(List.of(
+                new Facet(10, 2, true, 5, "20"),
+                new Facet(11, 2, false, 0, "30"),
+                new Facet(12, 3, false, 3, "120")));
+        when(productSizeRepository.findActiveSizeValues()).thenReturn(List.of(
+                new SizeValue(10, "1kg"), new SizeValue(10, "500g"),
+                new SizeValue(11, "1kg"),
+                new SizeValue(12, "500g")));
+
+        facetService = new FacetService(productRepository, productSizeRepository, categoryRepository);
+        ReflectionTestUtils.setField(facetService, "priceBoundaries",
+                List.of(new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100")));
+    }
+
+    @Test
+    void countsIgnoreTheFacetsOwnFilter() {
+        FacetResultDTO result = facetService.search(1, Set.of("1kg"), null, null, null);
+
+        assertEquals(List.of(10, 11), result.getProductIds());
+        // Size chỉ lọc theo category: 500g vẫn đếm được dù đang chọn 1kg
+        assertEquals(Map.of("1kg", 2, "500g", 1), result.getSizes());
+        // Category chỉ lọc theo size; category cha đếm cả sản phẩm của category con
+        assertEquals(Map.of(1, 2, 2, 2, 3, 0), result.getCategories());
+        assertEquals(Map.of("0-25", 1, "25-50", 1, "50-100", 0, "100+", 0), result.getPriceBuckets());
+        assertEquals(1, result.getInStock());
+        assertEquals(1, result.getFeatured());
+
+        FacetResultDTO inStock = facetService.search(1, Set.of("1kg"), null, true, null);
+        assertEquals(List.of(10), inStock.getProductIds());
+        assertEquals(1, inStock.getInStock());
+        assertEquals(Map.of("1kg", 1, "500g", 1), inStock.getSizes());
+        assertEquals(Map.of("0-25", 1, "25-50", 0, "50-100", 0, "100+", 0), inStock.getPriceBuckets());
+    }
+
+    @Test
+    void invalidationsUpdateIndexIncrementallyAndReuseOrdinals() {
+        assertEquals(List.of(10, 11, 12), facetService.search(null, null, null, null, null).getProductIds());
+
+        // Sản phẩm 11 ngừng bán: không còn trong kết quả, size 1kg chỉ còn sản phẩm 10
+        when(productRepository.findActiveProductFacetsByIds(List.of(11))).thenReturn(List.of());
+        when(productSizeRepository.findActiveSizeValuesByProductIds(List.of(11))).thenReturn(List.of());
+        facetService.onInvalidation(List.of(productChanged(11)));
+
+        FacetResultDTO afterRemove = facetService.search(null, null, null, null, null);
+        assertEquals(List.of(10, 12), afterRemove.getProductIds());
+        assertEquals(Map.of("1kg", 1, "500g", 2), afterRemove.getSizes());
+        assertEquals(Map.of(1, 1, 2, 1, 3, 1), afterRemove.getCategories());
+
+        // Sản phẩm mới lấy lại ordinal trống của 11 nên đứng giữa 10 và 12
+        when(productRepository.findActiveProductFacetsByIds(List.of(13)))
+                .thenReturn(List.of(new Facet(13, 3, false, 7, "40")));
+        when(productSizeRepository.findActiveSizeValuesByProductIds(List.of(13)))
+                .thenReturn(List.of(new SizeValue(13, "2kg")));
+        facetService.onInvalidation(List.of(productChanged(13)));
+
+        assertEquals(List.of(10, 13, 12), facetService.search(null, null, null, null, null).getProductIds());
+        assertEquals(List.of(13, 12), facetService.search(3, null, null, null, null).getProductIds());
+
+        // Sản phẩm 12 đổi giá và thành featured: bỏ ordinal cũ rồi thêm lại vào chỗ trống đầu tiên
+        when(productRepository.findActiveProductFacetsByIds(List.of(12)))
+                .thenReturn(List.of(new Facet(12, 3, true, 3, "60")));
+        when(productSizeRepository.findActiveSizeValuesByProductIds(List.of(12)))
+                .thenReturn(List.of(new SizeValue(12, "500g")));
+        facetService.onInvalidation(List.of(productChanged(12)));
+
+        FacetResultDTO afterUpdate = facetService.search(null, null, Set.of("50-100"), null, true);
+        assertEquals(List.of(12), afterUpdate.getProductIds());
+        assertEquals(Map.of("0-25", 1, "25-50", 0, "50-100", 1, "100+", 0), afterUpdate.getPriceBuckets());
+        assertEquals(1, afterUpdate.getFeatured());
+        assertEquals(List.of(10, 13, 12), facetService.search(null, null, null, null, null).getProductIds());
+        assertEquals(List.of(12), facetService.search(null, null, Set.of("100+", "50-100"), null, null)
+                .getProductIds());
+
+        // Chỉ dựng toàn bộ một lần; category đổi mới dựng lại
+        verify(productRepository, times(1)).findActiveProductFacets();
+        facetService.onInvalidation(List.of(new CacheInvalidation(4, OutboxService.CATEGORY, "2",
+                OutboxService.CATEGORY, "2", OutboxEvent.ChangeType.UPDATED)));
+        verify(productRepository, times(2)).findActiveProductFacets();
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private static CacheInvalidation productChanged(int productId) {
+        return new CacheInvalidation(productId, OutboxService.PRODUCT, String.valueOf(productId),
+                OutboxService.PRODUCT, String.valueOf(productId), OutboxEvent.ChangeType.UPDATED);
+    }
+
+    private record Link(Long id, Long parentId) implements CategoryParentView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getParentId() {
+            return parentId;
+        }
+    }
+
+    private record Facet(Integer productId, Integer categoryId, Boolean featured, Integer available,
+                         String price) implements ProductFacetView {
+
+        @Override
+        public Integer getProductId() {
+            return productId;
+        }
+
+        @Override
+        public Integer getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public Boolean getIsFeatured() {
+            return featured;
+        }
+
+        @Override
+        public Integer getAvailableQuantity() {
+            return available;
+        }
+
+        @Override
+        public BigDecimal getMinPrice() {
+            return new BigDecimal(price);
+        }
+    }
+
+    private record SizeValue(Integer productId, String size) implements ProductSizeValueView {
+
+        @Override
+        public Integer getProductId() {
+            return productId;
+        }
+
+        @Override
+        public String getSize() {
+            return size;
+        }
+    }
+}
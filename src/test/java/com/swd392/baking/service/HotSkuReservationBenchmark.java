@@ -0,0 +1,108 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.Application;
+import com.swd392.baking.model.AddToCartRequest;
+import com.swd392.baking.model.CartDTO;
+import com.swd392.baking.model.Product;
+import com.swd392.baking.model.ProductSize;
+import com.swd392.baking.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput thêm vào giỏ khi mọi luồng cùng giữ hàng của một SKU (một dòng PRODUCTS bị tranh chấp).
+ * Mỗi luồng có giỏ hàng riêng nên chỉ câu UPDATE giữ hàng là điểm nghẽn chung.
+ * Chạy trên H2 (MSSQLServer mode), số tuyệt đối khác SQL Server nhưng cho thấy xu hướng khi tăng số luồng.
+ * Chạy: ./scripts/hot-sku-benchmark.sh -t 1, -t 8, -t 32
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class HotSkuReservationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private AddToCartRequest request;
+
+    @State(Scope.Thread)
+    public static class Session {
+        private final String sessionId = UUID.randomUUID().toString();
+    }
+
+    @Setup
+    public void setUp() {
+        // Tham số dòng lệnh để ghi đè application.properties (properties() chỉ là giá trị mặc định)
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:hot-sku;MODE=MSSQLServer;DATABASE_TO_UPPER=false"
+                        + ";LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.swd392.baking=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.thymeleaf=WARN");
+        cartService = context.getBean(CartService.class);
+
+        Product product = new Product();
+        product.setProductName("Bột mì flash sale");
+        product.setCategoryId(1);
+        product.setStockQuantity(Integer.MAX_VALUE / 2);
+        ProductSize size = new ProductSize();
+        size.setSize("1kg");
+        size.setSku("HOT-SKU");
+        size.setRegularPrice(new BigDecimal("25000"));
+        product.addProductSize(size);
+        context.getBean(ProductRepository.class).save(product);
+
+        request = AddToCartRequest.builder()
+                .productId(product.getProductId())
+                .priceId(size.getPriceId())
+                .sizeSelected("1kg")
+                .quantity(1)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartDTO addHotSku(Session session) {
+        return cartService.addToCart(request, null, session.sessionId);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotSkuReservationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,198 @@
+package com.swd392.baking.service;
+
+import com.swd392.baking.event.CacheInvalidation;
+import com.swd392.baking.event.InvalidationTransport;
+import com.swd392.baking.model.OutboxEvent;
+import com.swd392.baking.repository.CacheInvalidationRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hai JdbcInvalidationTransport trên cùng một database H2, đóng vai hai node; poll được gọi tay
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jdbc-invalidation;MODE=MSSQLServer;DATABASE_TO_UPPER=false",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "baking.invalidation.poll-interval=PT1H"
+})
+class JdbcInvalidationTransportTests {
+
+    // Không có listener nào của ứng dụng nhận loại aggregate này
+    private static final String AGGREGATE_TYPE = "TransportTest";
+
+    private static final Duration SETTLE_DELAY = Duration.ofMillis(300);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheInvalidationRecordRepository recordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void lowerIdCommittedAfterHigherIdReachesBothNodes() throws Exception {
+        Node nodeA = startNode(Duration.ofDays(1));
+        Node nodeB = startNode(Duration.ofDays(1));
+
+        CountDownLatch lowInserted = new CountDownLatch(1);
+        CountDownLatch commitLow = new CountDownLatch(1);
+        Thread slowWriter = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            nodeA.transport.publish(List.of(invalidation("low")));
+            lowInserted.countDown();
+            await(commitLow);
+        }));
+        slowWriter.start();
+        assertTrue(lowInserted.await(10, TimeUnit.SECONDS));
+        nodeB.transport.publish(List.of(invalidation("high")));
+
+        nodeA.transport.poll();
+        nodeB.transport.poll();
+        assertEquals(List.of("high"), nodeA.receivedIds());
+        assertEquals(List.of("high"), nodeB.receivedIds());
+
+        commitLow.countDown();
+        slowWriter.join(10_000);
+        nodeA.transport.poll();
+        nodeB.transport.poll();
+
+        assertEquals(List.of("high", "low"), nodeA.receivedIds());
+        assertEquals(nodeA.receivedIds(), nodeB.receivedIds());
+        long low = nodeA.versionOf("low");
+        long high = nodeA.versionOf("high");
+        assertTrue(low < high);
+        assertEquals(low, nodeB.versionOf("low"));
+        assertEquals(high, nodeB.versionOf("high"));
+    }
+
+    @Test
+    void cursorPassesRowOnlyAfterSettleDelay() throws Exception {
+        Node node = startNode(Duration.ofDays(1));
+        long start = cursorOf(node);
+
+        node.transport.publish(List.of(invalidation("settle")));
+        node.transport.poll();
+        node.transport.poll();
+        long version = node.versionOf("settle");
+        // Chưa qua settle-delay: con trỏ đứng yên nhưng dòng không bị giao lại
+        assertEquals(start, cursorOf(node));
+        assertEquals(List.of("settle"), node.receivedIds());
+
+        Thread.sleep(SETTLE_DELAY.toMillis() + 100);
+        node.transport.poll();
+        assertEquals(version, cursorOf(node));
+
+        node.transport.publish(List.of(invalidation("after-settle")));
+        node.transport.poll();
+        node.transport.poll();
+        assertEquals(List.of("settle", "after-settle"), node.receivedIds());
+    }
+
+    @Test
+    void pollGapLongerThanRetentionResyncs() throws Exception {
+        Node shortRetention = startNode(Duration.ofMillis(500));
+        Node longRetention = startNode(Duration.ofDays(1));
+
+        shortRetention.transport.publish(List.of(invalidation("during-gap")));
+        Thread.sleep(600);
+        shortRetention.transport.poll();
+        longRetention.transport.poll();
+
+        // Node lâu không poll bỏ toàn bộ cache thay vì nhận từng dòng; node kia nhận dòng bình thường
+        assertEquals(1, shortRetention.resyncs);
+        assertTrue(shortRetention.receivedIds().isEmpty());
+        assertEquals(recordRepository.findMaxId(), cursorOf(shortRetention));
+        assertEquals(0, longRetention.resyncs);
+        assertEquals(List.of("during-gap"), longRetention.receivedIds());
+
+        longRetention.transport.publish(List.of(invalidation("after-resync")));
+        shortRetention.transport.poll();
+        longRetention.transport.poll();
+        assertEquals(1, shortRetention.resyncs);
+        assertEquals(List.of("after-resync"), shortRetention.receivedIds());
+        assertEquals(List.of("during-gap", "after-resync"), longRetention.receivedIds());
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    // Node mới: lần poll đầu chỉ đặt con trỏ tại id lớn nhất hiện có
+    private Node startNode(Duration retention) {
+        JdbcInvalidationTransport transport = new JdbcInvalidationTransport(jdbcTemplate, recordRepository);
+        ReflectionTestUtils.setField(transport, "batchSize", 500);
+        ReflectionTestUtils.setField(transport, "settleDelay", SETTLE_DELAY);
+        ReflectionTestUtils.setField(transport, "retention", retention);
+        Node node = new Node(transport);
+        transport.subscribe(node);
+        transport.poll();
+        return node;
+    }
+
+    private static long cursorOf(Node node) {
+        return (Long) ReflectionTestUtils.getField(node.transport, "cursor");
+    }
+
+    private static CacheInvalidation invalidation(String aggregateId) {
+        return new CacheInvalidation(0, AGGREGATE_TYPE, aggregateId, AGGREGATE_TYPE, aggregateId,
+                OutboxEvent.ChangeType.UPDATED);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Node implements InvalidationTransport.Receiver {
+
+        private final JdbcInvalidationTransport transport;
+        private final List<CacheInvalidation> received = new ArrayList<>();
+        private int resyncs;
+
+        Node(JdbcInvalidationTransport transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public void accept(List<CacheInvalidation> invalidations) {
+            received.addAll(invalidations);
+        }
+
+        @Override
+        public void resync() {
+            resyncs++;
+        }
+
+        List<String> receivedIds() {
+            return received.stream().map(CacheInvalidation::getAggregateId).toList();
+        }
+
+        long versionOf(String aggregateId) {
+            return received.stream()
+                    .filter(invalidation -> invalidation.getAggregateId().equals(aggregateId))
+                    .mapToLong(CacheInvalidation::getVersion)
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.swd392.baking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightCacheTests {
+
+    private static final int THREADS = 32;
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlightCache<Integer, String> cache = new SingleFlightCache<>("test", key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value-" + key;
+        }, Duration.ofMinutes(1), Duration.ofMinutes(1), 1.0, Runnable::run);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> cache.get(7)));
+        }
+        // Cho các luồng kịp vào chờ lần load đang chạy rồi mới trả kết quả
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("value-7", future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleValueIsServedWhileRefreshing() {
+        AtomicInteger version = new AtomicInteger();
+        List<Runnable> refreshes = new ArrayList<>();
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>("test", key -> version.incrementAndGet(),
+                Duration.ofMinutes(1), Duration.ofMinutes(1), 1.0, refreshes::add);
+
+        assertEquals(1, cache.get("k"));
+        cache.invalidate("k");
+
+        // Hết hạn: vẫn trả giá trị cũ và xếp một lần nạp lại ở background
+        assertEquals(1, cache.get("k"));
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertEquals(2, cache.get("k"));
+    }
+
+    @Test
+    void loaderFailureIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", key -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("down");
+            }
+            return "ok";
+        }, Duration.ofMinutes(1), Duration.ofMinutes(1), 1.0, Runnable::run);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k"));
+        assertEquals("ok", cache.get("k"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void loaderErrorReleasesWaiters() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", key -> {
+            if (calls.incrementAndGet() == 1) {
+                await(release);
+                throw new StackOverflowError("loader crashed");
+            }
+            return "ok";
+        }, Duration.ofMinutes(1), Duration.ofMinutes(1), 1.0, Runnable::run);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> cache.get("k")));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        // Mọi request đang chờ nhận Error thay vì treo
+        for (Future<String> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+        executor.shutdown();
+        assertEquals("ok", cache.get("k"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}